@@ -0,0 +1,77 @@
+package org.legendofdragoon.scripting.benchmarks;
+
+import com.sun.management.ThreadMXBean;
+import org.legendofdragoon.scripting.Disassembler;
+import org.legendofdragoon.scripting.generator.GeneratorOptions;
+import org.legendofdragoon.scripting.generator.ScriptGenerator;
+import org.legendofdragoon.scripting.generator.SyntheticMeta;
+import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.tokens.Script;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How much the disassembler allocates per script word. Most of it should be the tokens the script keeps (ops, params,
+ * labels); compare {@code bytesPerWord} across changes to catch garbage creeping back into the probe loop. The gc
+ * profiler's {@code gc.alloc.rate.norm} gives the same total per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 20)
+@Measurement(iterations = 20)
+public class AllocationBenchmark {
+  private static final ThreadMXBean THREADS = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+  /** Approximate script size in bytes */
+  @Param({"16384", "1048576"})
+  public int size;
+
+  private Meta meta;
+  private byte[] bytes;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public double bytesPerWord;
+
+    private long start;
+
+    @Setup(Level.Invocation)
+    public void start() {
+      this.start = THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop(final AllocationBenchmark benchmark) {
+      this.bytesPerWord = (double)(THREADS.getCurrentThreadAllocatedBytes() - this.start) / (benchmark.bytes.length / 4);
+    }
+  }
+
+  @Setup
+  public void setup() {
+    this.meta = SyntheticMeta.create();
+    this.bytes = ScriptGenerator.generate(new GeneratorOptions().targetBytes(this.size)).bytes();
+  }
+
+  @Benchmark
+  public Script disassemble(final Counters counters) {
+    return new Disassembler(this.meta).disassemble(this.bytes, new int[0]);
+  }
+}
@@ -0,0 +1,115 @@
+package org.legendofdragoon.scripting.benchmarks;
+
+import org.legendofdragoon.scripting.DecodeTable;
+import org.legendofdragoon.scripting.OpType;
+import org.legendofdragoon.scripting.ParameterType;
+import org.legendofdragoon.scripting.WordClasses;
+import org.legendofdragoon.scripting.generator.GeneratedScript;
+import org.legendofdragoon.scripting.generator.GeneratorOptions;
+import org.legendofdragoon.scripting.generator.ScriptGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classifies every word of a generated script as an op header and param, the way the disassembler's heuristics do.
+ * {@link #linearScan} is the enum search the decode tables replaced, kept as the baseline. {@link #classifyWords} and
+ * {@link #classifyWordsScalar} build the disassembler's up-front bitmaps, vectorized and not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DecodeBenchmark {
+  private int[] words;
+  private org.legendofdragoon.scripting.State script;
+
+  @Setup
+  public void setup() {
+    final GeneratedScript generated = ScriptGenerator.generate(new GeneratorOptions().targetBytes(262144));
+    this.words = generated.words;
+    this.script = new org.legendofdragoon.scripting.State(generated.bytes());
+  }
+
+  @Benchmark
+  public int decodeTable() {
+    int valid = 0;
+
+    for(final int word : this.words) {
+      if(DecodeTable.isValidHeader(word)) {
+        valid++;
+      }
+
+      valid += DecodeTable.paramWidth(word);
+    }
+
+    return valid;
+  }
+
+  @Benchmark
+  public int linearScan() {
+    int valid = 0;
+
+    for(final int word : this.words) {
+      if(isValidHeaderByScan(word)) {
+        valid++;
+      }
+
+      final ParameterType paramType = paramTypeByScan(word >>> 24);
+      valid += paramType == ParameterType.ID ? 1 + ((word >>> 16 & 0xff) + 3) / 4 : paramType.width;
+    }
+
+    return valid;
+  }
+
+  @Benchmark
+  public WordClasses classifyWords() {
+    return WordClasses.classify(this.script);
+  }
+
+  @Benchmark
+  public WordClasses classifyWordsScalar() {
+    return WordClasses.classifyScalar(this.script);
+  }
+
+  private static boolean isValidHeaderByScan(final int word) {
+    OpType type = null;
+    for(final OpType op : OpType.values()) {
+      if(op.opcode == (word & 0xff)) {
+        type = op;
+        break;
+      }
+    }
+
+    if(type == null || type == OpType.CALL && word >>> 16 >= 1024) {
+      return false;
+    }
+
+    if(type != OpType.CALL && type.paramNames.length != (word >> 8 & 0xff)) {
+      return false;
+    }
+
+    return type.headerParamName != null || word >> 16 == 0;
+  }
+
+  private static ParameterType paramTypeByScan(final int opcode) {
+    for(final ParameterType type : ParameterType.values()) {
+      if(type.opcode == opcode) {
+        return type;
+      }
+    }
+
+    return ParameterType.IMMEDIATE;
+  }
+}
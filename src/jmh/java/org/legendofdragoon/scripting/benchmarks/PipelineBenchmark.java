@@ -0,0 +1,85 @@
+package org.legendofdragoon.scripting.benchmarks;
+
+import org.legendofdragoon.scripting.Compiler;
+import org.legendofdragoon.scripting.Disassembler;
+import org.legendofdragoon.scripting.Lexer;
+import org.legendofdragoon.scripting.Translator;
+import org.legendofdragoon.scripting.generator.GeneratedScript;
+import org.legendofdragoon.scripting.generator.GeneratorOptions;
+import org.legendofdragoon.scripting.generator.ScriptGenerator;
+import org.legendofdragoon.scripting.generator.SyntheticMeta;
+import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.tokens.Script;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/** One benchmark per pipeline stage on generated scripts, each fed the output of the previous stage */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PipelineBenchmark {
+  /** Approximate script size in bytes */
+  @Param({"16384", "262144", "1048576"})
+  public int size;
+
+  private Meta meta;
+  private byte[] bytes;
+  private ByteBuffer direct;
+  private Script disassembled;
+  private String source;
+  private Script lexed;
+
+  @Setup
+  public void setup() {
+    final GeneratedScript script = ScriptGenerator.generate(new GeneratorOptions().targetBytes(this.size));
+
+    this.meta = SyntheticMeta.create();
+    this.bytes = script.bytes();
+    this.direct = ByteBuffer.allocateDirect(this.bytes.length).put(this.bytes).flip();
+    this.lexed = new Lexer(this.meta).lex(script.source);
+
+    this.disassembled = new Disassembler(this.meta).disassemble(this.bytes, new int[0]);
+    this.source = new Translator().translate(this.disassembled, this.meta, false, false);
+  }
+
+  @Benchmark
+  public Script disassemble() {
+    return new Disassembler(this.meta).disassemble(this.bytes, new int[0]);
+  }
+
+  /** Same as {@link #disassemble} but reading off-heap, the way a memory-mapped file is read */
+  @Benchmark
+  public Script disassembleDirect() {
+    return new Disassembler(this.meta).disassemble(this.direct, new int[0]);
+  }
+
+  @Benchmark
+  public String translate() {
+    return new Translator().translate(this.disassembled, this.meta, false, false);
+  }
+
+  @Benchmark
+  public Script lex() {
+    return new Lexer(this.meta).lex(this.source);
+  }
+
+  @Benchmark
+  public int[] compile() {
+    return new Compiler().compile(this.lexed);
+  }
+}
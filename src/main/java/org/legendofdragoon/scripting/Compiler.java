@@ -2,7 +2,9 @@ package org.legendofdragoon.scripting;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.legendofdragoon.scripting.tokens.CompactScript;
 import org.legendofdragoon.scripting.tokens.Data;
+import org.legendofdragoon.scripting.tokens.DataRun;
 import org.legendofdragoon.scripting.tokens.Entry;
 import org.legendofdragoon.scripting.tokens.Entrypoint;
 import org.legendofdragoon.scripting.tokens.LodString;
@@ -14,6 +16,10 @@ import org.legendofdragoon.scripting.tokens.Script;
 public class Compiler {
   private static final Logger LOGGER = LogManager.getFormatterLogger(Compiler.class);
 
+  public int[] compile(final CompactScript script) {
+    return this.compile(script.toScript());
+  }
+
   public int[] compile(final Script script) {
     final int[] out = new int[script.entries.length];
 
@@ -24,6 +30,11 @@ public class Compiler {
         out[entryIndex] = this.findEntrypointAddress(script, entrypoint);
       } else if(entry instanceof final Data data) {
         out[entryIndex] = data.value;
+      } else if(entry instanceof final DataRun run) {
+        // A string can spill into the first words of a run, so copy from wherever this entry index falls in it
+        final int start = entryIndex - run.address / 0x4;
+        run.copyTo(start, out, entryIndex);
+        entryIndex += run.length() - start - 1;
       } else if(entry instanceof final LodString data) {
         for(int i = 0; i < data.chars.length; i += 2) {
           out[entryIndex] = data.chars[i];
@@ -70,12 +81,6 @@ public class Compiler {
   }
 
   private int findLabelAddress(final Script script, final String label) {
-    final var opt = script.labels.entrySet().stream().filter(entry -> entry.getValue().contains(label)).findFirst();
-
-    if(opt.isEmpty()) {
-      throw new RuntimeException("Couldn't find label destination " + label);
-    }
-
-    return opt.get().getKey();
+    return script.labels.addressOf(label).orElseThrow(() -> new RuntimeException("Couldn't find label destination " + label));
   }
 }
@@ -0,0 +1,422 @@
+package org.legendofdragoon.scripting;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.legendofdragoon.scripting.batch.BatchFailure;
+import org.legendofdragoon.scripting.batch.BatchResult;
+import org.legendofdragoon.scripting.batch.Bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits a corpus job into units of a few files and hands them out to {@link Worker} processes over a loopback socket.
+ * Units are dealt round-robin into one queue per worker slot up front. A worker takes from the front of its own queue
+ * and, once that is empty, steals from the back of the fullest other queue. A unit whose worker reports an error or
+ * disconnects is retried on another worker where there is one, up to a limit, after which its files are reported as
+ * failed. Spawned workers that exit while units remain are replaced, so a unit that crashes its JVM doesn't take the rest
+ * of the corpus down with it.
+ *
+ * <p>Protocol (one tab-separated line per message): on connect the coordinator sends {@code JOB}. The worker sends
+ * {@code READY} whenever it wants work and gets either {@code UNIT id file...} (paths relative to the input directory)
+ * or {@code STOP}. For a unit it answers with one {@code FAIL file message} per failed file followed by {@code DONE id},
+ * or with {@code ERROR id message} if the whole unit couldn't be processed.</p>
+ */
+public class Coordinator {
+  private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+  static final String JOB = "JOB";
+  static final String READY = "READY";
+  static final String UNIT = "UNIT";
+  static final String STOP = "STOP";
+  static final String FAIL = "FAIL";
+  static final String DONE = "DONE";
+  static final String ERROR = "ERROR";
+
+  private final Job job;
+  private final int fileCount;
+  private final int maxRetries;
+  private final List<Deque<Unit>> queues = new ArrayList<>();
+  private final Deque<Unit> retries = new ArrayDeque<>();
+  private final ConcurrentLinkedQueue<BatchFailure> failures = new ConcurrentLinkedQueue<>();
+  /** IDs of the workers connected right now */
+  private final Set<Integer> connected = new HashSet<>();
+  private int remainingUnits;
+  private int nextSlot;
+  private int nextWorkerId;
+  private int stolen;
+  private int retried;
+  private int respawned;
+  /** Counts units finished or failed, so a worker that dies without getting anything done isn't replaced forever */
+  private int progress;
+
+  public Coordinator(final Job job, final List<Path> files, final int unitSize, final int slots, final int maxRetries) {
+    this.job = job;
+    this.fileCount = files.size();
+    this.maxRetries = maxRetries;
+
+    for(int i = 0; i < Math.max(1, slots); i++) {
+      this.queues.add(new ArrayDeque<>());
+    }
+
+    for(int start = 0; start < files.size(); start += unitSize) {
+      final int id = this.remainingUnits++;
+      this.queues.get(id % this.queues.size()).add(new Unit(id, files.subList(start, Math.min(start + unitSize, files.size()))));
+    }
+  }
+
+  /**
+   * Runs the job to completion. Spawns the given number of local worker processes; with none, waits for workers
+   * started separately to connect to the port.
+   */
+  public BatchResult run(final int port, final int spawn) throws IOException, InterruptedException {
+    final List<Process> processes = new ArrayList<>();
+    final long start = System.nanoTime();
+
+    try(final ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+      LOGGER.info("Coordinator listening on %s:%d, %d files in %d units", server.getInetAddress().getHostAddress(), server.getLocalPort(), this.fileCount, this.remainingUnits);
+
+      Thread.ofVirtual().name("coordinator-accept").start(() -> {
+        while(!server.isClosed()) {
+          try {
+            final Socket socket = server.accept();
+            Thread.ofVirtual().name("coordinator-" + socket.getPort()).start(() -> this.serve(socket));
+          } catch(final IOException e) {
+            if(!server.isClosed()) {
+              LOGGER.error("Failed to accept worker: %s", e);
+            }
+          }
+        }
+      });
+
+      final List<Process> live = new ArrayList<>();
+      for(int i = 0; i < spawn; i++) {
+        live.add(spawnWorker(server.getLocalPort()));
+      }
+
+      processes.addAll(live);
+
+      int progressAtRespawn = 0;
+      int fruitlessRespawns = 0;
+
+      synchronized(this) {
+        while(this.remainingUnits > 0) {
+          this.wait(1000);
+
+          if(this.progress != progressAtRespawn) {
+            progressAtRespawn = this.progress;
+            fruitlessRespawns = 0;
+          }
+
+          // Replace workers that died, unless the replacements keep dying without anything getting done
+          for(int i = 0; i < live.size() && this.remainingUnits > 0; i++) {
+            if(!live.get(i).isAlive() && fruitlessRespawns < spawn) {
+              LOGGER.warn("Worker exited with code %d, starting another", live.get(i).exitValue());
+              live.set(i, spawnWorker(server.getLocalPort()));
+              processes.add(live.get(i));
+              fruitlessRespawns++;
+              this.respawned++;
+            }
+          }
+
+          // Everything we spawned is gone, nothing is going to finish the remaining units
+          if(spawn != 0 && this.connected.isEmpty() && live.stream().noneMatch(Process::isAlive) && this.remainingUnits > 0) {
+            LOGGER.error("All workers exited with %d units remaining", this.remainingUnits);
+            this.abandonRemaining();
+          }
+        }
+
+        this.notifyAll();
+      }
+    }
+
+    final long elapsed = System.nanoTime() - start;
+
+    for(final Process process : processes) {
+      if(!process.waitFor(10, TimeUnit.SECONDS)) {
+        process.destroy();
+      }
+    }
+
+    LOGGER.info("%d units stolen, %d retried, %d workers replaced", this.stolen, this.retried, this.respawned);
+
+    final List<BatchFailure> sortedFailures = this.failures.stream().sorted(Comparator.comparing(failure -> failure.file)).toList();
+    return new BatchResult(this.fileCount, sortedFailures, elapsed);
+  }
+
+  private void serve(final Socket socket) {
+    final int slot;
+    final int workerId;
+    synchronized(this) {
+      slot = this.nextSlot++ % this.queues.size();
+      workerId = this.nextWorkerId++;
+      this.connected.add(workerId);
+    }
+
+    Unit current = null;
+
+    try(socket) {
+      final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      final Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+      send(writer, this.job.encode());
+
+      String line;
+      while((line = reader.readLine()) != null) {
+        if(!READY.equals(line)) {
+          throw new IOException("Expected " + READY + ", got " + line);
+        }
+
+        current = this.nextUnit(slot, workerId);
+
+        if(current == null) {
+          send(writer, STOP);
+          break;
+        }
+
+        final StringBuilder message = new StringBuilder(UNIT).append('\t').append(current.id);
+        for(final Path file : current.files) {
+          message.append('\t').append(this.job.inputDir.relativize(file));
+        }
+
+        send(writer, message.toString());
+
+        final List<BatchFailure> unitFailures = new ArrayList<>();
+        while(true) {
+          final String[] response = readFields(reader);
+
+          if(FAIL.equals(response[0])) {
+            requireFields(response, 3);
+            unitFailures.add(new BatchFailure(this.job.inputDir.resolve(response[1]), new RuntimeException(response[2])));
+          } else if(DONE.equals(response[0])) {
+            this.failures.addAll(unitFailures);
+            this.complete();
+            break;
+          } else if(ERROR.equals(response[0])) {
+            requireFields(response, 3);
+            this.retry(current, workerId, response[2]);
+            break;
+          } else {
+            throw new IOException("Unexpected response " + response[0]);
+          }
+        }
+
+        current = null;
+      }
+    } catch(final IOException e) {
+      LOGGER.warn("Lost worker on port %d: %s", socket.getPort(), e);
+    } finally {
+      synchronized(this) {
+        this.connected.remove(workerId);
+
+        if(current != null) {
+          this.retry(current, workerId, "Worker disconnected");
+        }
+
+        this.notifyAll();
+      }
+    }
+  }
+
+  /** Blocks until a unit is available, or returns null once every unit is finished */
+  private synchronized Unit nextUnit(final int slot, final int workerId) {
+    while(true) {
+      final Unit retry = this.retryFor(workerId);
+      if(retry != null) {
+        return retry;
+      }
+
+      final Unit own = this.queues.get(slot).pollFirst();
+      if(own != null) {
+        return own;
+      }
+
+      final Deque<Unit> victim = this.queues.stream().max(Comparator.comparingInt(Deque::size)).orElseThrow();
+      if(!victim.isEmpty()) {
+        this.stolen++;
+        return victim.removeLast();
+      }
+
+      if(this.remainingUnits == 0) {
+        return null;
+      }
+
+      // Units are still in flight on other workers, one of them may fail and need retrying
+      try {
+        this.wait();
+      } catch(final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }
+  }
+
+  /**
+   * A unit waiting to be retried that didn't already fail on this worker, so a worker that errors and asks again doesn't
+   * get the same unit straight back. It only does if every connected worker has already failed it.
+   */
+  private Unit retryFor(final int workerId) {
+    for(final Iterator<Unit> it = this.retries.iterator(); it.hasNext(); ) {
+      final Unit unit = it.next();
+
+      if(!unit.failedOn.contains(workerId) || unit.failedOn.containsAll(this.connected)) {
+        it.remove();
+        return unit;
+      }
+    }
+
+    return null;
+  }
+
+  private synchronized void complete() {
+    this.remainingUnits--;
+    this.progress++;
+    this.notifyAll();
+  }
+
+  private synchronized void retry(final Unit unit, final int workerId, final String reason) {
+    unit.attempts++;
+    unit.failedOn.add(workerId);
+    this.progress++;
+
+    if(unit.attempts > this.maxRetries) {
+      LOGGER.error("Unit %d failed %d times, giving up: %s", unit.id, unit.attempts, reason);
+      this.failUnit(unit, reason);
+    } else {
+      LOGGER.warn("Unit %d failed, retrying: %s", unit.id, reason);
+      this.retried++;
+      this.retries.add(unit);
+    }
+
+    this.notifyAll();
+  }
+
+  private void abandonRemaining() {
+    for(final Deque<Unit> queue : this.queues) {
+      queue.forEach(unit -> this.failUnit(unit, "No workers left"));
+      queue.clear();
+    }
+
+    this.retries.forEach(unit -> this.failUnit(unit, "No workers left"));
+    this.retries.clear();
+  }
+
+  private void failUnit(final Unit unit, final String reason) {
+    for(final Path file : unit.files) {
+      this.failures.add(new BatchFailure(file, new RuntimeException(reason)));
+    }
+
+    this.remainingUnits--;
+  }
+
+  /**
+   * Starts a worker with this JVM's class path and the arguments it needs to run the same way (heap and stack size,
+   * modules). Anything else, like a debug agent listening on a fixed port, would stop the workers from starting.
+   */
+  private static Process spawnWorker(final int port) throws IOException {
+    final List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+
+    for(final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if(argument.startsWith("-Xmx") || argument.startsWith("-Xms") || argument.startsWith("-Xss") || argument.startsWith("--add-modules") || argument.startsWith("--add-opens") || "--enable-preview".equals(argument)) {
+        command.add(argument);
+      }
+    }
+
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(Shell.class.getName());
+    command.add("worker");
+    command.add("-p");
+    command.add(Integer.toString(port));
+
+    return new ProcessBuilder(command).inheritIO().start();
+  }
+
+  static void send(final Writer writer, final String message) throws IOException {
+    writer.write(message);
+    writer.write('\n');
+    writer.flush();
+  }
+
+  static String[] readFields(final BufferedReader reader) throws IOException {
+    final String line = reader.readLine();
+
+    if(line == null) {
+      throw new IOException("Connection closed");
+    }
+
+    return line.split("\t", -1);
+  }
+
+  /** Garbled messages are treated like a lost connection, so the unit is retried rather than the worker thread dying */
+  static void requireFields(final String[] fields, final int count) throws IOException {
+    if(fields.length < count) {
+      throw new IOException("Malformed message " + String.join(" ", fields));
+    }
+  }
+
+  /** Everything a worker needs to know to process units, sent once per connection */
+  public static class Job {
+    public final Bench.Mode mode;
+    public final String version;
+    public final Path inputDir;
+    /** Unused when round-tripping */
+    public final Path outputDir;
+    public final boolean stripNames;
+    public final boolean stripComments;
+
+    public Job(final Bench.Mode mode, final String version, final Path inputDir, final Path outputDir, final boolean stripNames, final boolean stripComments) {
+      this.mode = mode;
+      this.version = version;
+      this.inputDir = inputDir;
+      this.outputDir = outputDir;
+      this.stripNames = stripNames;
+      this.stripComments = stripComments;
+    }
+
+    String encode() {
+      return String.join("\t", JOB, this.mode.name(), this.version, this.inputDir.toString(), this.outputDir != null ? this.outputDir.toString() : "", Boolean.toString(this.stripNames), Boolean.toString(this.stripComments));
+    }
+
+    static Job decode(final String[] fields) throws IOException {
+      if(fields.length != 7 || !JOB.equals(fields[0])) {
+        throw new IOException("Invalid job " + String.join(" ", fields));
+      }
+
+      return new Job(Bench.Mode.valueOf(fields[1]), fields[2], Paths.get(fields[3]), fields[4].isEmpty() ? null : Paths.get(fields[4]), Boolean.parseBoolean(fields[5]), Boolean.parseBoolean(fields[6]));
+    }
+  }
+
+  private static class Unit {
+    private final int id;
+    private final List<Path> files;
+    private final Set<Integer> failedOn = new HashSet<>();
+    private int attempts;
+
+    private Unit(final int id, final List<Path> files) {
+      this.id = id;
+      this.files = files;
+    }
+  }
+}
@@ -18,11 +18,15 @@ import java.net.URI;
 @Plugin(name = "CustomConfigurationFactory", category = ConfigurationFactory.CATEGORY)
 @Order(25)
 public class CustomConfigurationFactory extends ConfigurationFactory {
+  /** Set this system property to true and reconfigure to log to stderr, for when stdout carries something else */
+  public static final String LOG_TO_STDERR = "legend.logToStderr";
+
   public static Configuration createConfiguration(final String name, final ConfigurationBuilder<BuiltConfiguration> builder) {
     builder.setConfigurationName(name);
     builder.setStatusLevel(Level.ERROR);
     builder.add(builder.newFilter("ThresholdFilter", Filter.Result.ACCEPT, Filter.Result.NEUTRAL).addAttribute("level", Level.INFO));
-    final AppenderComponentBuilder appenderBuilder = builder.newAppender("Stdout", "CONSOLE").addAttribute("target", ConsoleAppender.Target.SYSTEM_OUT);
+    final ConsoleAppender.Target target = Boolean.getBoolean(LOG_TO_STDERR) ? ConsoleAppender.Target.SYSTEM_ERR : ConsoleAppender.Target.SYSTEM_OUT;
+    final AppenderComponentBuilder appenderBuilder = builder.newAppender("Stdout", "CONSOLE").addAttribute("target", target);
     appenderBuilder.add(builder.newLayout("PatternLayout").addAttribute("pattern", "%d{HH:mm:ss.SSS} [%t %c:%L] %highlight{%-5level}: %msg%n%throwable"));
     appenderBuilder.add(builder.newFilter("MarkerFilter", Filter.Result.DENY, Filter.Result.NEUTRAL).addAttribute("marker", "CDROM_DRIVE"));
     builder.add(appenderBuilder);
@@ -0,0 +1,315 @@
+package org.legendofdragoon.scripting;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.meta.MetaManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Long-running request server. Each request is a single line: a client-chosen request ID, a command, and the same
+ * arguments the command takes on the command line, e.g. {@code 7 decompile -v snapshot -i in.bin -o out.txt}.
+ * Arguments containing spaces may be double-quoted. Each request gets exactly one response line,
+ * {@code <id> OK <message>} or {@code <id> ERR <message>}. Relative paths resolve against the daemon's working directory.
+ *
+ * <p>Supported commands: decompile, compile, genpatch, applypatch, undopatch, ping, reload (forgets cached metas), shutdown.
+ * Metas stay cached for the life of the daemon, including snapshot, so send reload to pick up a new snapshot.</p>
+ *
+ * <p>Anything that can reach the loopback port could otherwise write files through it, a browser posting a form to it
+ * included. So on a socket the first line has to be {@code <id> auth <token>}, with the token {@link #listen} writes to a
+ * file only the current user can read. Any other first line ends the session without running it. Stdio sessions belong
+ * to whoever started the process and need no token.</p>
+ */
+public class Daemon {
+  private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+  /** Matches the request line of an HTTP request, so one can be turned away without being mistaken for a bad token */
+  private static final Pattern HTTP_REQUEST = Pattern.compile("^[A-Z]+ \\S+ HTTP/\\d.*");
+
+  private final MetaManager metaManager;
+  private final String token;
+  private volatile boolean running = true;
+  private ServerSocket server;
+
+  public Daemon(final MetaManager metaManager) {
+    this.metaManager = metaManager;
+
+    final byte[] secret = new byte[24];
+    new SecureRandom().nextBytes(secret);
+    this.token = HexFormat.of().formatHex(secret);
+  }
+
+  /**
+   * Accepts connections on a loopback port until a shutdown request arrives. Each connection is served on its own virtual thread.
+   *
+   * @param tokenFile Where to write the token that each connection has to authenticate with. It's readable by the current
+   *                  user only where the file system supports that, and deleted once the daemon stops.
+   */
+  public void listen(final int port, final Path tokenFile) throws IOException {
+    writeToken(tokenFile, this.token);
+
+    try(final ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+      this.server = server;
+      LOGGER.info("Daemon listening on %s:%d, clients must first send \"<id> auth <token>\" with the token from %s", server.getInetAddress().getHostAddress(), server.getLocalPort(), tokenFile);
+
+      while(this.running) {
+        final Socket socket;
+
+        try {
+          socket = server.accept();
+        } catch(final SocketException e) {
+          if(!this.running) {
+            break;
+          }
+
+          throw e;
+        }
+
+        Thread.ofVirtual().name("daemon-" + socket.getPort()).start(() -> {
+          try(socket) {
+            this.serveAuthenticated(socket.getInputStream(), socket.getOutputStream(), socket.getPort());
+          } catch(final IOException e) {
+            LOGGER.warn("Connection from port %d failed: %s", socket.getPort(), e);
+          }
+        });
+      }
+    } finally {
+      Files.deleteIfExists(tokenFile);
+    }
+
+    LOGGER.info("Daemon stopped");
+  }
+
+  private static void writeToken(final Path tokenFile, final String token) throws IOException {
+    final Path absolute = tokenFile.toAbsolutePath();
+    Files.createDirectories(absolute.getParent());
+    Files.deleteIfExists(absolute); // Recreate it so the permissions below apply to a file nobody else has open
+
+    if(FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      Files.createFile(absolute, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    }
+
+    Files.writeString(absolute, token, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /** Serves a connection whose first line has to authenticate it. A session that doesn't is closed without running anything. */
+  private void serveAuthenticated(final InputStream input, final OutputStream output, final int port) throws IOException {
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    final Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+
+    final String first = reader.readLine();
+    if(first == null) {
+      return;
+    }
+
+    if(HTTP_REQUEST.matcher(first).matches()) {
+      LOGGER.warn("Rejected an HTTP request from port %d", port);
+      return;
+    }
+
+    final List<String> tokens = tokenize(first);
+    if(tokens.size() != 3 || !"auth".equals(tokens.get(1)) || !MessageDigest.isEqual(tokens.get(2).getBytes(StandardCharsets.UTF_8), this.token.getBytes(StandardCharsets.UTF_8))) {
+      LOGGER.warn("Rejected a connection from port %d that didn't start with the token", port);
+      return;
+    }
+
+    writer.write(tokens.getFirst() + " OK Authenticated\n");
+    writer.flush();
+
+    this.serve(reader, writer);
+  }
+
+  /** Serves requests from one stream until it ends or a shutdown request arrives. Nothing is authenticated, the caller has to trust the stream. */
+  public void serve(final InputStream input, final OutputStream output) throws IOException {
+    this.serve(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), new OutputStreamWriter(output, StandardCharsets.UTF_8));
+  }
+
+  private void serve(final BufferedReader reader, final Writer writer) throws IOException {
+    String line;
+    while(this.running && (line = reader.readLine()) != null) {
+      if(line.isBlank()) {
+        continue;
+      }
+
+      writer.write(this.handle(line));
+      writer.write('\n');
+      writer.flush();
+    }
+  }
+
+  public String handle(final String line) {
+    final List<String> tokens = tokenize(line);
+    final String id = tokens.getFirst();
+
+    if(tokens.size() < 2) {
+      return id + " ERR Missing command";
+    }
+
+    final long start = System.nanoTime();
+
+    try {
+      final String message = this.execute(tokens.get(1), tokens.subList(1, tokens.size()).toArray(String[]::new));
+      LOGGER.info("Request %s (%s) took %.1fms", id, tokens.get(1), (System.nanoTime() - start) / 1_000_000.0d);
+      return id + " OK " + message;
+    } catch(final Exception | StackOverflowError e) {
+      LOGGER.error("Request %s (%s) failed: %s", id, tokens.get(1), e);
+      return id + " ERR " + String.valueOf(e.getMessage()).replace('\n', ' ');
+    }
+  }
+
+  private String execute(final String command, final String[] args) throws Exception {
+    return switch(command) {
+      case "ping" -> "pong";
+
+      case "reload" -> {
+        this.metaManager.clearLoaded();
+        yield "Meta cache cleared";
+      }
+
+      case "shutdown" -> {
+        this.running = false;
+
+        if(this.server != null) {
+          this.server.close();
+        }
+
+        yield "Shutting down";
+      }
+
+      case "d", "decompile" -> {
+        final CommandLine cmd = this.parse(Shell.fileOptions(command), args);
+        final Meta meta = this.metaManager.loadMeta(cmd.getOptionValue("version", "snapshot"));
+        final Path inputFile = this.existingFile(cmd.getOptionValue("in"));
+        final Path outputFile = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+
+        if(cmd.hasOption("only") || cmd.hasOption("at")) {
+          Shell.decompileSlice(meta, inputFile, outputFile, cmd.getOptionValue("only"), cmd.getOptionValue("at"), cmd.hasOption("no-names"), cmd.hasOption("no-comments"));
+        } else {
+          Shell.decompile(meta, inputFile, outputFile, Shell.parseBranches(cmd.getOptionValues("branch")), cmd.hasOption("no-names"), cmd.hasOption("no-comments"), cmd.hasOption("parallel"));
+        }
+
+        yield outputFile.toString();
+      }
+
+      case "c", "compile" -> {
+        final CommandLine cmd = this.parse(Shell.fileOptions(command), args);
+        final Meta meta = this.metaManager.loadMeta(cmd.getOptionValue("version", "snapshot"));
+        final Path inputFile = this.existingFile(cmd.getOptionValue("in"));
+        final Path outputFile = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+
+        Shell.compile(meta, inputFile, outputFile);
+        yield outputFile.toString();
+      }
+
+      case "g", "genpatch" -> {
+        final CommandLine cmd = this.parse(this.patchOptions("original", "modified"), args);
+        yield this.writeOutput(cmd, Patcher.generatePatch(this.existingFile(cmd.getOptionValue("original")), this.existingFile(cmd.getOptionValue("modified"))));
+      }
+
+      case "a", "applypatch" -> {
+        final CommandLine cmd = this.parse(this.patchOptions("original", "patch"), args);
+        yield this.writeOutput(cmd, Patcher.applyPatch(this.existingFile(cmd.getOptionValue("original")), this.existingFile(cmd.getOptionValue("patch"))));
+      }
+
+      case "u", "undopatch" -> {
+        final CommandLine cmd = this.parse(this.patchOptions("patched", "patch"), args);
+        yield this.writeOutput(cmd, Patcher.undoPatch(this.existingFile(cmd.getOptionValue("patched")), this.existingFile(cmd.getOptionValue("patch"))));
+      }
+
+      default -> throw new IllegalArgumentException("Unknown command " + command);
+    };
+  }
+
+  private Options patchOptions(final String a, final String b) {
+    final Options options = new Options();
+    options.addRequiredOption("a", a, true, "The " + a + " file");
+    options.addRequiredOption("b", b, true, "The " + b + " file");
+    options.addRequiredOption("o", "out", true, "The output file");
+    return options;
+  }
+
+  private CommandLine parse(final Options options, final String[] args) throws ParseException {
+    return new DefaultParser().parse(options, args);
+  }
+
+  private Path existingFile(final String path) throws IOException {
+    final Path file = Paths.get(path).toAbsolutePath();
+
+    if(!Files.exists(file)) {
+      throw new IOException("Input file " + file + " does not exist");
+    }
+
+    return file;
+  }
+
+  private String writeOutput(final CommandLine cmd, final String output) throws IOException {
+    final Path outputFile = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+    Files.createDirectories(outputFile.getParent());
+    Files.writeString(outputFile, output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    return outputFile.toString();
+  }
+
+  /** Splits on whitespace, treating double-quoted runs as a single token */
+  static List<String> tokenize(final String line) {
+    final List<String> tokens = new ArrayList<>();
+    final StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+    boolean hasToken = false;
+
+    for(int i = 0; i < line.length(); i++) {
+      final char c = line.charAt(i);
+
+      if(c == '"') {
+        quoted = !quoted;
+        hasToken = true;
+      } else if(!quoted && Character.isWhitespace(c)) {
+        if(hasToken) {
+          tokens.add(current.toString());
+          current.setLength(0);
+          hasToken = false;
+        }
+      } else {
+        current.append(c);
+        hasToken = true;
+      }
+    }
+
+    if(hasToken) {
+      tokens.add(current.toString());
+    }
+
+    if(tokens.isEmpty()) {
+      return List.of("?");
+    }
+
+    return tokens;
+  }
+}
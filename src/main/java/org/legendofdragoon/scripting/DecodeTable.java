@@ -0,0 +1,95 @@
+package org.legendofdragoon.scripting;
+
+import java.util.Arrays;
+
+/**
+ * Dense 256-entry tables for decoding op headers and param words, so that decoding a word is a few array loads instead
+ * of a search through the enums. Shared by {@link OpType}, {@link ParameterType}, and through them the disassembler,
+ * lexer and compiler.
+ */
+public final class DecodeTable {
+  private DecodeTable() { }
+
+  private static final OpType[] OP_TYPES = new OpType[0x100];
+  /** Required param count for each opcode, -1 for unknown opcodes or CALL (whose count depends on the method) */
+  private static final int[] OP_PARAM_COUNTS = new int[0x100];
+  private static final boolean[] OP_HAS_HEADER_PARAM = new boolean[0x100];
+
+  private static final ParameterType[] PARAM_TYPES = new ParameterType[0x100];
+  /** Width in words of each param type, 0 if it depends on the param itself */
+  private static final int[] PARAM_WIDTHS = new int[0x100];
+
+  /** The same op facts packed into one int per opcode for {@link WordClasses}: flags below, required param count in bits 8-15 */
+  static final int[] OP_INFO = new int[0x100];
+  static final int OP_VALID = 0x1;
+  static final int OP_CALL = 0x2;
+  static final int OP_HEADER_PARAM = 0x4;
+  /** 1 for each param type byte that decodes to something other than an immediate */
+  static final int[] NON_IMMEDIATE_PARAMS = new int[0x100];
+
+  static {
+    Arrays.fill(OP_PARAM_COUNTS, -1);
+
+    for(final OpType type : OpType.values()) {
+      OP_TYPES[type.opcode] = type;
+      OP_PARAM_COUNTS[type.opcode] = type == OpType.CALL ? -1 : type.paramNames.length;
+      OP_HAS_HEADER_PARAM[type.opcode] = type.headerParamName != null;
+      OP_INFO[type.opcode] = OP_VALID | (type == OpType.CALL ? OP_CALL : 0) | (type.headerParamName != null ? OP_HEADER_PARAM : 0) | (type == OpType.CALL ? 0 : type.paramNames.length << 8);
+    }
+
+    Arrays.fill(PARAM_TYPES, ParameterType.IMMEDIATE);
+    Arrays.fill(PARAM_WIDTHS, ParameterType.IMMEDIATE.width);
+
+    for(final ParameterType type : ParameterType.values()) {
+      PARAM_TYPES[type.opcode] = type;
+      PARAM_WIDTHS[type.opcode] = type.width;
+    }
+
+    for(int opcode = 0; opcode < PARAM_TYPES.length; opcode++) {
+      NON_IMMEDIATE_PARAMS[opcode] = PARAM_TYPES[opcode] != ParameterType.IMMEDIATE ? 1 : 0;
+    }
+  }
+
+  /** @return the op type for an opcode byte, or null if there isn't one */
+  public static OpType opType(final int opcode) {
+    return opcode >= 0 && opcode < OP_TYPES.length ? OP_TYPES[opcode] : null;
+  }
+
+  /** Whether a word is a well-formed op header: a known opcode, the param count it takes, and a header param only if it has one */
+  public static boolean isValidHeader(final int word) {
+    final int opcode = word & 0xff;
+    final OpType type = OP_TYPES[opcode];
+
+    if(type == null) {
+      return false;
+    }
+
+    // CALL with function index out of range
+    if(type == OpType.CALL && word >>> 16 >= 1024) {
+      return false;
+    }
+
+    //TODO once we implement all subfuncs, add their param counts too
+    if(type != OpType.CALL && OP_PARAM_COUNTS[opcode] != (word >> 8 & 0xff)) {
+      return false;
+    }
+
+    return OP_HAS_HEADER_PARAM[opcode] || word >> 16 == 0;
+  }
+
+  /** @return the param type for a param type byte, {@link ParameterType#IMMEDIATE} if unknown */
+  public static ParameterType paramType(final int opcode) {
+    return opcode >= 0 && opcode < PARAM_TYPES.length ? PARAM_TYPES[opcode] : ParameterType.IMMEDIATE;
+  }
+
+  /** @return the width in words of the param that starts with this word */
+  public static int paramWidth(final int word) {
+    final int width = PARAM_WIDTHS[word >>> 24];
+
+    if(width != 0) {
+      return width;
+    }
+
+    return 1 + ((word >>> 16 & 0xff) + 3) / 4; // ID: byte length of the packed string
+  }
+}
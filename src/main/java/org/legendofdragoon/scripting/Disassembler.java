@@ -5,7 +5,9 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.Marker;
 import org.apache.logging.log4j.MarkerManager;
 import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.tokens.AddressSet;
 import org.legendofdragoon.scripting.tokens.Data;
+import org.legendofdragoon.scripting.tokens.DataRun;
 import org.legendofdragoon.scripting.tokens.Entry;
 import org.legendofdragoon.scripting.tokens.Entrypoint;
 import org.legendofdragoon.scripting.tokens.LodString;
@@ -14,38 +16,261 @@ import org.legendofdragoon.scripting.tokens.Param;
 import org.legendofdragoon.scripting.tokens.PointerTable;
 import org.legendofdragoon.scripting.tokens.Script;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalInt;
 import java.util.Set;
-import java.util.function.Consumer;
-import java.util.function.Predicate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class Disassembler {
   private static final Logger LOGGER = LogManager.getFormatterLogger();
   private static final Marker DISASSEMBLY = MarkerManager.getMarker("DISASSEMBLY");
+  /** Parallel probes claim entry slots through this, the first probe to decode a word keeps it */
+  private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(Entry[].class);
+
+  // Worklist task kinds. Each task is four ints: the kind, then up to three operands (usually an address first)
+  private static final int PROBE_BRANCH = 0;
+  private static final int RESUME_BRANCH = 1;
+  /** Finish decoding the params of the next suspended op: param index, current offset, entry offset */
+  private static final int RESUME_PARAMS = 2;
+  private static final int PROBE_TABLE_OF_TABLES = 3;
+  private static final int PROBE_TABLE_OF_BRANCHES = 4;
+  /** Marks where the events of a claimed branch or table end: the event that claimed it. Only parallel probes queue it. */
+  private static final int END_SEGMENT = 5;
+
+  // Events a parallel probe logs instead of touching the script's labels and sets, four ints each like the worklist
+  /** Reached a branch: address, index of the event after its last one (-1 if another probe claimed it) */
+  private static final int LOG_BRANCH = 0;
+  /** Reached a table of tables or branches, operands as for {@link #LOG_BRANCH} */
+  private static final int LOG_TABLE = 1;
+  /** Param index, table address. The ref is the op. Read during the replay, where the entries around it are as the serial probe would see them. */
+  private static final int LOG_POINTER_TABLE = 2;
+  /** Site, destination. The ref is the param that gets the label. */
+  private static final int LOG_PARAM_LABEL = 3;
+  /** Site, destination, entry index. The ref is the table that gets the label. */
+  private static final int LOG_TABLE_LABEL = 4;
+  /** Destination set, address */
+  private static final int LOG_DESTINATION = 5;
+  /** The ref is a string builder */
+  private static final int LOG_STRINGS = 6;
+  /** The ref is the message */
+  private static final int LOG_DIAGNOSTIC = 7;
+  /** Entry index. The ref is the entry. */
+  private static final int LOG_ENTRY = 8;
+  /** The ref is the exception that ended the probe */
+  private static final int LOG_FAILURE = 9;
+
+  // Which Script set receives table destinations
+  private static final int DISCARDED_DESTS = 0;
+  private static final int JUMP_TABLE_DESTS = 1;
+  private static final int SUBS = 2;
+  private static final int REENTRIES = 3;
+
+  /** Marks words with no string terminator at or after them in {@link #nextTerminator} */
+  private static final int NO_TERMINATOR = Integer.MAX_VALUE;
 
   private final Meta meta;
   private State state;
+  /** For each word, the index of the first word at or after it that contains a string terminator. Null for a slice. */
+  private int[] nextTerminator;
+  /** A slice's last terminator scan: every word from {@link #scannedFrom} to {@link #scannedTo} has this one next */
+  private int scannedFrom;
+  private int scannedTo;
+  private int scannedTerminator;
+  private WordClasses classes;
+
+  /** Pending probe tasks, processed last in first out so that discovery order matches a depth-first probe */
+  private int[] worklist = new int[256];
+  private int worklistSize;
+  private final Deque<Op> suspendedOps = new ArrayDeque<>();
+  /** Reused while reading a table so that probing a table doesn't allocate anything it doesn't keep */
+  private int[] tableScratch = new int[64];
+
+  private ForkJoinPool pool;
+
+  // Only set on the probe of a single entrypoint during a parallel run
+  private int probeIndex;
+  /** Which probe claimed each branch and where in its log: probe index + 1 in the high half, event index in the low half */
+  private AtomicLongArray branchClaims;
+  /** Same as {@link #branchClaims} for tables */
+  private AtomicLongArray tableClaims;
+  /** Entry slots this probe claimed, it may overwrite those like the serial probe would */
+  private long[] ownedEntries;
+  /** Branches and tables at addresses the claims can't hold, which only happens for broken input */
+  private Map<Long, Integer> unclaimable;
+  private int[] events;
+  private Object[] eventRefs;
+  private int eventCount;
+  /** Set once this probe gave up within its budget, see {@link #abandonProbe} */
+  private boolean abandoned;
+
+  private DisassemblyBudget budget;
+  private int branchCount;
+  private long probeSteps;
+  private long deadlineNanos;
+  /** Set once the budget has run out, nothing more gets probed */
+  private boolean exhausted;
 
   public Disassembler(final Meta meta) {
     this.meta = meta;
   }
 
+  /**
+   * Probes entrypoints concurrently on this pool, or one after another if null. Code that entrypoints share is probed once,
+   * by whichever probe reaches it first. Labels are named afterwards in the order the serial probe would have added them.
+   */
+  public Disassembler parallel(final ForkJoinPool pool) {
+    this.pool = pool;
+    return this;
+  }
+
+  /** Limits the work done on each script, for input that can't be trusted. See {@link DisassemblyBudget}. */
+  public Disassembler budget(final DisassemblyBudget budget) {
+    this.budget = budget;
+    return this;
+  }
+
   public Script disassemble(final byte[] bytes, final int[] extraBranches) {
-    this.state = new State(bytes);
+    return this.disassemble(ByteBuffer.wrap(bytes), extraBranches);
+  }
 
-    final Script script = new Script(this.state.length() / 4);
+  /** Disassembles the buffer's remaining bytes in place, so a memory-mapped file never needs to be copied to the heap */
+  public Script disassemble(final ByteBuffer bytes, final int[] extraBranches) {
+    Script script = this.begin(bytes, false);
+    boolean probed = false;
 
-    this.getEntrypoints(script);
+    if(this.pool != null && script.entrypoints.size() > 1) {
+      probed = this.probeEntrypointsInParallel(bytes.slice(), script); // Each probe takes its own view of the same bytes
+
+      if(!probed) {
+        final long deadlineNanos = this.deadlineNanos;
+        script = this.begin(bytes, false);
+        this.deadlineNanos = deadlineNanos;
+      }
+    }
+
+    if(!probed) {
+      for(final int entrypoint : this.entrypointProbeOrder(script)) {
+        this.probeWithinBudget(script, entrypoint);
+      }
+    }
+
+    this.truncateOverrunTables(script);
+
+    for(final int extraBranch : extraBranches) {
+      this.probeWithinBudget(script, extraBranch);
+    }
+
+    script.buildStrings.forEach(Runnable::run);
+
+    this.fillStrings(script);
+    this.fillData(script);
+
+    LOGGER.info(DISASSEMBLY, "Probing complete");
+
+    return script;
+  }
+
+  public Script disassembleFrom(final byte[] bytes, final int root) {
+    return this.disassembleFrom(ByteBuffer.wrap(bytes), root);
+  }
+
+  /**
+   * Disassembles only what is reachable from one address, for looking at a single routine. Words are only read once the
+   * probe reaches them: the terminator index, word classes and label and xref indexes are built as it goes rather than
+   * for the whole script. Everything it doesn't reach is left null rather than filled with data, and {@link Translator}
+   * skips it. What's left that grows with the script is the entries array, a null for every word, and walks over it.
+   * Label names match a full disassembly except for LABEL_ numbers, which only count the labels in the slice.
+   */
+  public Script disassembleFrom(final ByteBuffer bytes, final int root) {
+    final Script script = this.begin(bytes, true);
+    return this.disassembleSlice(script, root);
+  }
+
+  public Script disassembleEntrypoint(final byte[] bytes, final int index) {
+    return this.disassembleEntrypoint(ByteBuffer.wrap(bytes), index);
+  }
+
+  /** Like {@link #disassembleFrom} starting at ENTRYPOINT_{@code index} */
+  public Script disassembleEntrypoint(final ByteBuffer bytes, final int index) {
+    final Script script = this.begin(bytes, true);
+
+    if(index < 0 || index >= script.entries.length || !(script.entries[index] instanceof Entrypoint)) {
+      throw new IllegalArgumentException("No ENTRYPOINT_%d, the script has %d".formatted(index, this.countEntrypoints(script)));
+    }
+
+    return this.disassembleSlice(script, this.state.wordAt(index * 0x4));
+  }
+
+  private Script disassembleSlice(final Script script, final int root) {
+    if(root < 0 || root >= this.state.length() || (root & 0x3) != 0) {
+      throw new IllegalArgumentException("Address %x is not a word in the script".formatted(root));
+    }
+
+    // Keep only the entrypoints that lead here, the rest of the table points at code this slice won't have
+    for(int i = 0; i < script.entries.length && script.entries[i] instanceof Entrypoint; i++) {
+      if(this.state.wordAt(i * 0x4) != root) {
+        script.entries[i] = null;
+      }
+    }
+
+    this.probeWithinBudget(script, root);
+    this.truncateOverrunTables(script);
+
+    script.buildStrings.forEach(Runnable::run);
+
+    this.fillStrings(script);
+
+    LOGGER.info(DISASSEMBLY, "Probing from %x complete", root);
 
-    for(final int entrypoint : script.entrypoints) {
-      this.probeBranch(script, entrypoint);
+    return script;
+  }
+
+  private int countEntrypoints(final Script script) {
+    int count = 0;
+    while(count < script.entries.length && script.entries[count] instanceof Entrypoint) {
+      count++;
     }
 
+    return count;
+  }
+
+  /** Resets per-script state and reads the entrypoint table. A slice indexes nothing up front, see {@link #disassembleFrom}. */
+  private Script begin(final ByteBuffer bytes, final boolean slice) {
+    this.state = new State(bytes);
+    this.nextTerminator = slice ? null : this.indexTerminators();
+    this.scannedFrom = 0;
+    this.scannedTo = -1;
+    this.classes = slice ? WordClasses.lazy(this.state) : WordClasses.classify(this.state);
+    this.worklistSize = 0; // A previous run may have thrown mid-probe
+    this.suspendedOps.clear();
+    this.branchCount = 0;
+    this.probeSteps = 0;
+    this.exhausted = false;
+
+    if(this.budget != null && this.budget.deadline != null) {
+      this.deadlineNanos = System.nanoTime() + this.budget.deadline.toNanos();
+    }
+
+    final Script script = slice ? new Script(this.state.length() / 4, 0) : new Script(this.state.length() / 4);
+
+    this.getEntrypoints(script);
+    return script;
+  }
+
+  /** Cuts pointer tables short where they run into something else */
+  private void truncateOverrunTables(final Script script) {
     for(int entryIndex = 0; entryIndex < script.entries.length; entryIndex++) {
       final Entry entry = script.entries[entryIndex];
 
@@ -61,11 +286,11 @@ public class Disassembler {
             LOGGER.warn("Jump table overrun at %x", entry.address);
 
             for(int toRemove = labelIndex; toRemove < rel.labels.length; toRemove++) {
-              // If this is the last usage of the label, remove it
-              if(script.labelUsageCount.get(rel.labels[toRemove]) <= 1) {
-                for(final List<String> labels : script.labels.values()) {
-                  labels.remove(rel.labels[toRemove]);
-                }
+              // Drop the truncated entry's reference, and the label too if that was its last one
+              final OptionalInt destAddress = script.labels.addressOf(rel.labels[toRemove]);
+
+              if(destAddress.isPresent() && script.xrefs.remove(rel.address + toRemove * 0x4, destAddress.getAsInt()) == 0) {
+                script.labels.remove(rel.labels[toRemove]);
               }
             }
 
@@ -80,37 +305,496 @@ public class Disassembler {
         entryIndex--;
       }
     }
+  }
 
-    for(final int extraBranch : extraBranches) {
-      this.probeBranch(script, extraBranch);
+  /**
+   * Probes each entrypoint on its own thread, all writing entries into the one script. A probe claims each entry slot with
+   * a compare-and-set, and each branch and table it reaches in {@link #branchClaims} or {@link #tableClaims}, so shared
+   * code is only probed once. Labels, destination sets, string builders and diagnostics are logged rather than added to
+   * the script, then {@link #replay} adds them in the order the serial probe would have. Pointer tables are left to the
+   * replay too, since where one ends depends on the entries around it.
+   *
+   * @return false if a probe ran out of budget or failed within it. Where the serial probe would have stopped depends on
+   * the order it ran in, so the caller probes the script again serially.
+   */
+  private boolean probeEntrypointsInParallel(final ByteBuffer bytes, final Script script) {
+    final int[] entrypoints = this.entrypointProbeOrder(script);
+    final AtomicLongArray branchClaims = new AtomicLongArray(script.entries.length);
+    final AtomicLongArray tableClaims = new AtomicLongArray(script.entries.length);
+    final Disassembler[] probes = new Disassembler[entrypoints.length];
+    final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+    for(int i = 0; i < entrypoints.length; i++) {
+      final Disassembler probe = this.forkProbe(bytes, script, i, branchClaims, tableClaims);
+      final int entrypoint = entrypoints[i];
+      probes[i] = probe;
+      tasks.add(this.pool.submit(() -> {
+        try {
+          probe.probeWithinBudget(script, entrypoint);
+        } catch(final RuntimeException e) {
+          probe.log(LOG_FAILURE, 0, 0, 0, e); // The replay throws the first failure the serial probe would have hit
+        }
+      }));
     }
 
-    script.buildStrings.forEach(Runnable::run);
+    try {
+      tasks.forEach(ForkJoinTask::join);
+    } finally {
+      tasks.forEach(task -> task.cancel(false));
+    }
 
-    this.fillStrings(script);
-    this.fillData(script);
+    if(this.budget != null) {
+      for(final Disassembler probe : probes) {
+        if(probe.abandoned) {
+          return false;
+        }
 
-    LOGGER.info(DISASSEMBLY, "Probing complete");
+        this.branchCount += probe.branchCount;
+        this.probeSteps += probe.probeSteps;
+      }
 
-    return script;
+      try {
+        this.checkBudget();
+      } catch(final BudgetExceededException e) {
+        return false;
+      }
+    }
+
+    // Probes saw each other's entries while probing, but the serial probe's last write to a word is the one that stays
+    final int entrypointCount = this.countEntrypoints(script);
+    final Entry[] entrypointEntries = Arrays.copyOf(script.entries, entrypointCount);
+    Arrays.fill(script.entries, null);
+    System.arraycopy(entrypointEntries, 0, script.entries, 0, entrypointCount);
+
+    try {
+      this.replay(script, probes);
+    } catch(final RuntimeException e) {
+      if(this.budget == null) {
+        throw e;
+      }
+
+      return false; // Reading a pointer table ran out of budget or failed
+    }
+
+    return true;
   }
 
-  private void probeBranch(final Script script, final int offset) {
-    // Made our way into another branch, no need to parse again
-    if(script.branches.contains(offset)) {
+  private Disassembler forkProbe(final ByteBuffer bytes, final Script script, final int index, final AtomicLongArray branchClaims, final AtomicLongArray tableClaims) {
+    final Disassembler probe = new Disassembler(this.meta);
+    probe.state = new State(bytes);
+    probe.nextTerminator = this.nextTerminator;
+    probe.classes = this.classes;
+    probe.budget = this.budget;
+    probe.deadlineNanos = this.deadlineNanos;
+    probe.probeIndex = index;
+    probe.branchClaims = branchClaims;
+    probe.tableClaims = tableClaims;
+    probe.ownedEntries = new long[(script.entries.length + 63) >>> 6];
+    probe.events = new int[256];
+    probe.eventRefs = new Object[64];
+    return probe;
+  }
+
+  /**
+   * Applies the probes' logs to the script. Branches and tables are visited depth first in entrypoint order, following
+   * each one into the log of the probe that claimed it, and skipped once visited, exactly as the serial probe decides what
+   * to probe. Labels therefore get the same names, and everything is added in the same order, as probing serially.
+   */
+  private void replay(final Script script, final Disassembler[] probes) {
+    // Each frame is a probe, the next event to apply and the event to stop at
+    int[] frames = new int[48];
+    int frameCount = 0;
+
+    for(int root = 0; root < probes.length; root++) {
+      frames[0] = root;
+      frames[1] = 0;
+      frames[2] = probes[root].eventCount;
+      frameCount = 3;
+
+      String tablePrefix = null;
+      PointerTable prefixTable = null;
+
+      while(frameCount != 0) {
+        final int frame = frameCount - 3;
+        final Disassembler probe = probes[frames[frame]];
+        final int event = frames[frame + 1];
+
+        if(event >= frames[frame + 2]) {
+          frameCount -= 3;
+          continue;
+        }
+
+        final int kind = probe.events[event * 4];
+        final int a = probe.events[event * 4 + 1];
+        final int b = probe.events[event * 4 + 2];
+        final int c = probe.events[event * 4 + 3];
+        final Object ref = probe.eventRefs[event];
+        final boolean claimedHere = kind <= LOG_TABLE && b != -1;
+        frames[frame + 1] = claimedHere ? Math.min(b, probe.eventCount) : event + 1; // Step over a segment claimed here
+
+        switch(kind) {
+          case LOG_BRANCH, LOG_TABLE -> {
+            if(!(kind == LOG_BRANCH ? script.branches : script.subTables).add(a)) {
+              continue;
+            }
+
+            final int owner;
+            final int start;
+            if(claimedHere) {
+              owner = frames[frame];
+              start = event;
+            } else {
+              final long claim = probe.claimOf(kind, a);
+              owner = (int)(claim >>> 32) - 1;
+              start = (int)claim;
+            }
+
+            if(frameCount == frames.length) {
+              frames = Arrays.copyOf(frames, frames.length * 2);
+            }
+
+            frames[frameCount] = owner;
+            frames[frameCount + 1] = start + 1;
+            frames[frameCount + 2] = Math.min(probes[owner].events[start * 4 + 2], probes[owner].eventCount);
+            frameCount += 3;
+          }
+
+          case LOG_PARAM_LABEL -> ((Param)ref).label = script.addLabel(a, b, "LABEL_", script.getLabelCount());
+
+          case LOG_POINTER_TABLE -> this.handlePointerTable(script, (Op)ref, a, b);
+
+          case LOG_TABLE_LABEL -> {
+            final PointerTable table = (PointerTable)ref;
+
+            if(table != prefixTable) {
+              prefixTable = table;
+              tablePrefix = "JMP_" + Integer.toHexString(table.address) + '_';
+            }
+
+            table.labels[c] = script.addLabel(a, b, tablePrefix, c);
+          }
+
+          case LOG_DESTINATION -> {
+            final AddressSet destinations = destinationSet(script, a);
+
+            if(destinations != null) {
+              destinations.add(b);
+            }
+          }
+
+          case LOG_ENTRY -> script.entries[a] = (Entry)ref;
+          case LOG_STRINGS -> script.buildStrings.add((Runnable)ref);
+          case LOG_DIAGNOSTIC -> script.diagnostics.add((String)ref);
+          case LOG_FAILURE -> throw (RuntimeException)ref;
+          default -> throw new IllegalStateException("Unknown event kind " + kind);
+        }
+      }
+    }
+  }
+
+  /** @return the claim on a branch or table this probe logged reaching */
+  private long claimOf(final int kind, final int address) {
+    final AtomicLongArray claims = kind == LOG_BRANCH ? this.branchClaims : this.tableClaims;
+
+    if((address & 0x3) == 0 && address >= 0 && address >>> 2 < claims.length()) {
+      return claims.get(address >>> 2);
+    }
+
+    return (long)(this.probeIndex + 1) << 32 | this.unclaimable.get(unclaimableKey(kind, address));
+  }
+
+  private static long unclaimableKey(final int kind, final int address) {
+    return (long)kind << 32 | address & 0xffff_ffffL;
+  }
+
+  /**
+   * Logs that a parallel probe reached a branch or table and claims it, unless another probe already has.
+   *
+   * @return the event to pass to {@link #endSegment} once it's been probed, or -1 if this probe shouldn't probe it
+   */
+  private int claimSegment(final int kind, final int address) {
+    final AtomicLongArray claims = kind == LOG_BRANCH ? this.branchClaims : this.tableClaims;
+    final int event = this.log(kind, address, Integer.MAX_VALUE, 0, null);
+
+    if((address & 0x3) == 0 && address >= 0 && address >>> 2 < claims.length()) {
+      if(claims.compareAndSet(address >>> 2, 0, (long)(this.probeIndex + 1) << 32 | event)) {
+        return event;
+      }
+    } else {
+      if(this.unclaimable == null) {
+        this.unclaimable = new HashMap<>();
+      }
+
+      // Other probes can't find this probe's events for it, so every probe that reaches it follows it for itself
+      if(this.unclaimable.putIfAbsent(unclaimableKey(kind, address), event) == null) {
+        return event;
+      }
+    }
+
+    this.events[event * 4 + 2] = -1;
+    return -1;
+  }
+
+  private void endSegment(final int event) {
+    this.events[event * 4 + 2] = this.eventCount;
+  }
+
+  private int log(final int kind, final int a, final int b, final int c, final Object ref) {
+    if(this.eventCount * 4 == this.events.length) {
+      this.events = Arrays.copyOf(this.events, this.events.length * 2);
+    }
+
+    if(this.eventCount == this.eventRefs.length) {
+      this.eventRefs = Arrays.copyOf(this.eventRefs, this.eventRefs.length * 2);
+    }
+
+    this.events[this.eventCount * 4] = kind;
+    this.events[this.eventCount * 4 + 1] = a;
+    this.events[this.eventCount * 4 + 2] = b;
+    this.events[this.eventCount * 4 + 3] = c;
+    this.eventRefs[this.eventCount] = ref;
+    return this.eventCount++;
+  }
+
+  /**
+   * Probes a branch. With a budget, nothing more is probed once it runs out, and a probe that fails is abandoned and
+   * recorded in the diagnostics rather than failing the whole script.
+   */
+  private void probeWithinBudget(final Script script, final int offset) {
+    if(this.budget == null) {
+      this.probeBranch(script, offset);
+      return;
+    }
+
+    if(this.exhausted) {
+      return;
+    }
+
+    try {
+      this.probeBranch(script, offset);
+    } catch(final BudgetExceededException e) {
+      this.exhausted = true;
+      this.diagnose(script, e.getMessage());
+      this.abandonProbe(script);
+    } catch(final RuntimeException e) {
+      this.diagnose(script, "Probe of %x failed: %s".formatted(offset, e.getMessage()));
+      this.abandonProbe(script);
+    }
+  }
+
+  private void diagnose(final Script script, final String message) {
+    if(this.events != null) {
+      this.log(LOG_DIAGNOSTIC, 0, 0, 0, message);
+    } else {
+      script.diagnostics.add(message);
+    }
+  }
+
+  /** Drops what an interrupted probe left unfinished. Ops still missing params are left for {@link #fillData} to cover. */
+  private void abandonProbe(final Script script) {
+    this.worklistSize = 0;
+    this.suspendedOps.clear();
+    this.abandoned = true;
+
+    if(this.events != null) { // Other probes may still be filling in params, and the script gets probed again serially anyway
+      return;
+    }
+
+    for(int i = 0; i < script.entries.length; i++) {
+      if(script.entries[i] instanceof final Op op && hasMissingParams(op)) {
+        script.entries[i] = null;
+
+        for(int param = i + 1; param < script.entries.length && script.entries[param] instanceof Param; param++) {
+          script.entries[param] = null;
+        }
+      }
+    }
+  }
+
+  private static boolean hasMissingParams(final Op op) {
+    for(final Param param : op.params) {
+      if(param == null) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /** Counts an op decoded or table entry read against the budget */
+  private void countStep() {
+    if(this.budget != null) {
+      this.probeSteps++;
+
+      // The clock is only checked every so often, it costs more than the step
+      if(this.budget.maxProbeSteps != 0 && this.probeSteps > this.budget.maxProbeSteps || (this.probeSteps & 0xff) == 0) {
+        this.checkBudget();
+      }
+    }
+  }
+
+  private void countBranch() {
+    if(this.budget != null) {
+      this.branchCount++;
+      this.checkBudget();
+    }
+  }
+
+  private void checkBudget() {
+    if(this.budget.maxBranches != 0 && this.branchCount > this.budget.maxBranches) {
+      throw new BudgetExceededException("Stopped after %d branches".formatted(this.budget.maxBranches));
+    }
+
+    if(this.budget.maxProbeSteps != 0 && this.probeSteps > this.budget.maxProbeSteps) {
+      throw new BudgetExceededException("Stopped after %d probe steps".formatted(this.budget.maxProbeSteps));
+    }
+
+    if(this.pastDeadline()) {
+      throw new BudgetExceededException("Stopped at the %d ms deadline".formatted(this.budget.deadline.toMillis()));
+    }
+  }
+
+  private boolean pastDeadline() {
+    return this.budget != null && this.budget.deadline != null && System.nanoTime() - this.deadlineNanos > 0;
+  }
+
+  /** Counts a table entry against the budget. @return true if the table has to be cut off before this entry. */
+  private boolean tableFull(final Script script, final int tableAddress, final int entryCount) {
+    if(this.budget == null) {
+      return false;
+    }
+
+    if(this.budget.maxTableEntries != 0 && entryCount >= this.budget.maxTableEntries) {
+      this.diagnose(script, "Table at %x cut off at %d entries".formatted(tableAddress, entryCount));
+      return true;
+    }
+
+    this.countStep();
+    return false;
+  }
+
+  private Entry entryAt(final Script script, final int index) {
+    if(this.ownedEntries != null) {
+      return (Entry)ENTRIES.getAcquire(script.entries, index);
+    }
+
+    return script.entries[index];
+  }
+
+  private void setEntry(final Script script, final int index, final Entry entry) {
+    if(this.ownedEntries == null) {
+      script.entries[index] = entry;
+      return;
+    }
+
+    final long bit = 1L << index;
+
+    if((this.ownedEntries[index >>> 6] & bit) != 0) {
+      ENTRIES.setRelease(script.entries, index, entry);
+    } else if(ENTRIES.compareAndSet(script.entries, index, null, entry)) {
+      this.ownedEntries[index >>> 6] |= bit;
+    } // Otherwise another probe decoded this word first, the other probes see its entry until the replay
+
+    this.log(LOG_ENTRY, index, 0, 0, entry);
+  }
+
+  /** Adds a label to a table entry, or for a parallel probe logs it to be named once every probe is done */
+  private String addTableLabel(final Script script, final PointerTable table, final int index, final int destAddress, final String namePrefix) {
+    if(this.events != null) {
+      this.log(LOG_TABLE_LABEL, table.address + index * 0x4, destAddress, index, table);
+      return null;
+    }
+
+    return script.addLabel(table.address + index * 0x4, destAddress, namePrefix, index);
+  }
+
+  private void addDestination(final Script script, final int destinationsId, final int address) {
+    if(this.events != null) {
+      this.log(LOG_DESTINATION, destinationsId, address, 0, null);
       return;
     }
 
-    LOGGER.info(DISASSEMBLY, "Probing branch %x", offset);
-    script.branches.add(offset);
+    final AddressSet destinations = destinationSet(script, destinationsId);
 
-    final int oldHeaderOffset = this.state.headerOffset();
-    final int oldCurrentOffset = this.state.currentOffset();
+    if(destinations != null) {
+      destinations.add(address);
+    }
+  }
 
-    this.state.jump(offset);
+  private void addStringBuilder(final Script script, final Runnable builder) {
+    if(this.events != null) {
+      this.log(LOG_STRINGS, 0, 0, 0, builder);
+    } else {
+      script.buildStrings.add(builder);
+    }
+  }
+
+  /** Probes everything reachable from {@code offset}. Branches are discovered in the same order a depth-first recursive probe would find them. */
+  private void probeBranch(final Script script, final int offset) {
+    this.push(PROBE_BRANCH, offset, 0, 0);
+
+    while(this.worklistSize != 0) {
+      this.worklistSize -= 4;
+      final int kind = this.worklist[this.worklistSize];
+      final int a = this.worklist[this.worklistSize + 1];
+      final int b = this.worklist[this.worklistSize + 2];
+      final int c = this.worklist[this.worklistSize + 3];
+
+      switch(kind) {
+        case PROBE_BRANCH -> {
+          if(this.events != null) {
+            final int event = this.claimSegment(LOG_BRANCH, a);
+
+            if(event == -1) {
+              continue;
+            }
+
+            this.push(END_SEGMENT, event, 0, 0);
+          } else if(script.branches.contains(a)) { // Made our way into another branch, no need to parse again
+            continue;
+          }
+
+          this.countBranch();
+
+          if(LOGGER.isInfoEnabled(DISASSEMBLY)) { // Don't box the address for every branch when the log is off
+            LOGGER.info(DISASSEMBLY, "Probing branch %x", a);
+          }
+
+          if(this.events == null) {
+            script.branches.add(a);
+          }
+
+          this.state.jump(a);
+          this.probeOps(script);
+        }
 
-    outer:
+        case RESUME_BRANCH -> {
+          this.state.jump(a);
+          this.probeOps(script);
+        }
+
+        case RESUME_PARAMS -> {
+          final Op op = this.suspendedOps.pop();
+          this.state.headerOffset(op.address);
+          this.state.currentOffset(b);
+
+          if(this.probeParams(script, op, a, c) && this.probeFlow(script, op)) {
+            this.probeOps(script);
+          }
+        }
+
+        case PROBE_TABLE_OF_TABLES -> this.probeTable(script, b, a, PROBE_TABLE_OF_TABLES);
+        case PROBE_TABLE_OF_BRANCHES -> this.probeTable(script, b, a, PROBE_TABLE_OF_BRANCHES);
+        case END_SEGMENT -> this.endSegment(a);
+        default -> throw new IllegalStateException("Unknown probe kind " + kind);
+      }
+    }
+  }
+
+  /** Decodes ops from the current offset until the branch ends or work had to be deferred to the worklist */
+  private void probeOps(final Script script) {
     while(this.state.hasMore()) {
+      this.countStep();
       this.state.step();
 
       final Op op = this.parseHeader(this.state.currentOffset());
@@ -122,181 +806,250 @@ public class Disassembler {
 
       this.state.advance();
 
-      int entryOffset = this.state.headerOffset() / 4;
-      script.entries[entryOffset++] = op;
+      final int entryOffset = this.state.headerOffset() / 4;
+      this.setEntry(script, entryOffset, op);
 
-      for(int i = 0; i < op.params.length; i++) {
-        final ParameterType paramType = ParameterType.byOpcode(this.state.paramType());
+      if(!this.probeParams(script, op, 0, entryOffset + 1) || !this.probeFlow(script, op)) {
+        break;
+      }
+    }
+  }
 
-        final int[] rawValues = new int[paramType.getWidth(this.state)];
-        for(int n = 0; n < paramType.getWidth(this.state); n++) {
-          rawValues[n] = this.state.wordAt(this.state.currentOffset() + n * 0x4);
-        }
+  /**
+   * Decodes params starting at {@code paramIndex}. Returns false if a table of branches was queued, in which case the
+   * remaining params are queued to resume after it.
+   */
+  private boolean probeParams(final Script script, final Op op, final int paramIndex, int entryOffset) {
+    for(int i = paramIndex; i < op.params.length; i++) {
+      final ParameterType paramType = ParameterType.byOpcode(this.state.paramType());
+      final int width = DecodeTable.paramWidth(this.state.currentWord());
+
+      final int[] rawValues = new int[width];
+      for(int n = 0; n < width; n++) {
+        rawValues[n] = this.state.wordAt(this.state.currentOffset() + n * 0x4);
+      }
 
-        final int paramOffset = this.state.currentOffset();
-        final OptionalInt resolved = this.parseParamValue(this.state, paramType);
-        final Param param = new Param(paramOffset, paramType, rawValues, resolved, paramType.isInline() && resolved.isPresent() ? script.addLabel(resolved.getAsInt(), "LABEL_" + script.getLabelCount()) : null);
+      final int paramOffset = this.state.currentOffset();
+      final int resolved = this.parseParamValue(this.state, paramType);
+      final boolean labelled = paramType.isInline() && resolved != Param.UNRESOLVED;
+      final Param param = new Param(paramOffset, paramType, rawValues, resolved, labelled && this.events == null ? script.addLabel(paramOffset, resolved, "LABEL_", script.getLabelCount()) : null);
 
-        for(int n = 0; n < paramType.getWidth(param); n++) {
-          script.entries[entryOffset++] = param;
-        }
+      if(labelled && this.events != null) {
+        this.log(LOG_PARAM_LABEL, paramOffset, resolved, 0, param);
+      }
 
-        if(!paramType.isInline() || resolved.orElse(0) < script.entries.length * 4) {
-          op.params[i] = param;
-        } else {
-          LOGGER.warn("Pointer at 0x%x destination is past the end of the script, replacing with 0", paramOffset);
-          op.params[i] = new Param(paramOffset, ParameterType.IMMEDIATE, new int[] {ParameterType.IMMEDIATE.opcode << 24}, OptionalInt.of(0), null);
-          continue;
-        }
+      for(int n = 0; n < width; n++) {
+        this.setEntry(script, entryOffset++, param);
+      }
 
-        // Handle jump table params
-        if(paramType.isInlineTable() && op.type != OpType.GOSUB_TABLE && op.type != OpType.JMP_TABLE) {
-          if(op.type == OpType.CALL && !"none".equalsIgnoreCase(this.meta.methods[op.headerParam].params[i].branch)) {
-            final Set<Integer> tableDestinations = switch(this.meta.methods[op.headerParam].params[i].branch.toLowerCase()) {
-              case "jump" -> script.jumpTableDests;
-              case "subroutine" -> script.subs;
-              case "reentry" -> script.reentries;
-              default -> {
-                LOGGER.warn("Unknown branch type %s", this.meta.methods[op.headerParam].params[i].branch);
-                yield new HashSet<>();
-              }
-            };
+      if(!labelled || resolved < script.entries.length * 4) {
+        op.params[i] = param;
+      } else {
+        LOGGER.warn("Pointer at 0x%x destination is past the end of the script, replacing with 0", paramOffset);
+        op.params[i] = new Param(paramOffset, ParameterType.IMMEDIATE, new int[] {ParameterType.IMMEDIATE.opcode << 24}, 0, null);
+        continue;
+      }
 
-            param.resolvedValue.ifPresent(tableAddress -> this.probeTableOfBranches(script, tableDestinations, tableAddress));
-          } else {
-            final int finalI = i;
-            param.resolvedValue.ifPresent(tableAddress -> this.handlePointerTable(script, op, finalI, tableAddress, script.buildStrings));
+      // Handle jump table params
+      if(paramType.isInlineTable() && op.type != OpType.GOSUB_TABLE && op.type != OpType.JMP_TABLE) {
+        if(op.type == OpType.CALL && !"none".equalsIgnoreCase(this.meta.methods[op.headerParam].params[i].branch)) {
+          final int tableDestinations = switch(this.meta.methods[op.headerParam].params[i].branch.toLowerCase()) {
+            case "jump" -> JUMP_TABLE_DESTS;
+            case "subroutine" -> SUBS;
+            case "reentry" -> REENTRIES;
+            default -> {
+              LOGGER.warn("Unknown branch type %s", this.meta.methods[op.headerParam].params[i].branch);
+              yield DISCARDED_DESTS;
+            }
+          };
+
+          if(resolved != Param.UNRESOLVED) {
+            // The table has to be fully probed before the rest of this op is decoded
+            this.suspendedOps.push(op);
+            this.push(RESUME_PARAMS, i + 1, this.state.currentOffset(), entryOffset);
+            this.push(PROBE_TABLE_OF_BRANCHES, resolved, tableDestinations, 0);
+            return false;
           }
-        } else if(op.type == OpType.CALL && "string".equalsIgnoreCase(this.meta.methods[op.headerParam].params[i].type)) {
-          // Resolve strings that are pointed to by a non-table inline
-          param.resolvedValue.ifPresent(stringAddress ->
-            script.buildStrings.add(() ->
-              script.strings.add(new StringInfo(stringAddress, -1)) // We don't know the length
-            )
+        } else if(resolved != Param.UNRESOLVED) {
+          this.handlePointerTable(script, op, i, resolved);
+        }
+      } else if(op.type == OpType.CALL && "string".equalsIgnoreCase(this.meta.methods[op.headerParam].params[i].type)) {
+        // Resolve strings that are pointed to by a non-table inline
+        if(resolved != Param.UNRESOLVED) {
+          this.addStringBuilder(script, () ->
+            script.strings.add(new StringInfo(resolved, -1)) // We don't know the length
           );
         }
       }
+    }
 
-      switch(op.type) {
-        case CALL -> {
-          final Meta.ScriptMethod method = this.meta.methods[op.headerParam];
+    return true;
+  }
 
-          if(this.meta.methods[op.headerParam].params.length != op.params.length) {
+  /**
+   * Queues the branches an op leads to. Returns true if decoding should simply continue with the next op. Otherwise the
+   * rest of the branch (if any) is queued behind the op's destinations, and the caller must stop decoding.
+   */
+  private boolean probeFlow(final Script script, final Op op) {
+    final int resumeOffset = this.state.currentOffset();
+    final int worklistStart = this.worklistSize;
+    boolean terminal = false;
+
+    switch(op.type) {
+      case CALL -> {
+        final Meta.ScriptMethod method = this.meta.methods[op.headerParam];
+
+        if(this.meta.methods[op.headerParam].params.length != op.params.length) {
 //            throw new RuntimeException("CALL " + op.headerParam + " (" + this.meta.methods[op.headerParam] + ") has wrong number of args! " + method.params.length + '/' + op.params.length);
-          }
+        }
+
+        for(int i = 0; i < this.meta.methods[op.headerParam].params.length; i++) {
+          final Meta.ScriptParam param = method.params[i];
 
-          for(int i = 0; i < this.meta.methods[op.headerParam].params.length; i++) {
-            final Meta.ScriptParam param = method.params[i];
+          if(!"none".equalsIgnoreCase(param.branch)) {
+            final int dest = op.params[i].resolvedValue;
 
-            if(!"none".equalsIgnoreCase(param.branch)) {
-              op.params[i].resolvedValue.ifPresentOrElse(offset1 -> {
-                if("gosub".equalsIgnoreCase(param.branch)) {
-                  script.subs.add(offset1);
-                } else if("reentry".equalsIgnoreCase(param.branch)) {
-                  script.reentries.add(offset1);
-                }
+            if(dest != Param.UNRESOLVED) {
+              if("gosub".equalsIgnoreCase(param.branch)) {
+                this.addDestination(script, SUBS, dest);
+              } else if("reentry".equalsIgnoreCase(param.branch)) {
+                this.addDestination(script, REENTRIES, dest);
+              }
 
-                this.probeBranch(script, offset1);
-              }, () -> LOGGER.warn("Skipping CALL at %x due to unknowable parameter", this.state.headerOffset()));
+              this.push(PROBE_BRANCH, dest, 0, 0);
+            } else {
+              LOGGER.warn("Skipping CALL at %x due to unknowable parameter", this.state.headerOffset());
             }
           }
         }
+      }
 
-        case JMP -> {
-          op.params[0].resolvedValue.ifPresentOrElse(offset1 -> this.probeBranch(script, offset1), () -> LOGGER.warn("Skipping JUMP at %x due to unknowable parameter", this.state.headerOffset()));
+      case JMP -> {
+        final int dest = op.params[0].resolvedValue;
 
-          if(op.params[0].resolvedValue.isPresent()) {
-            break outer;
-          }
+        if(dest != Param.UNRESOLVED) {
+          this.push(PROBE_BRANCH, dest, 0, 0);
+        } else {
+          LOGGER.warn("Skipping JUMP at %x due to unknowable parameter", this.state.headerOffset());
         }
 
-        case JMP_CMP, JMP_CMP_0 -> {
-          op.params[op.params.length - 1].resolvedValue.ifPresentOrElse(addr -> {
-            this.probeBranch(script, this.state.currentOffset());
-            this.probeBranch(script, addr);
-          }, () ->
-            LOGGER.warn("Skipping %s at %x due to unknowable parameter", op.type, this.state.headerOffset())
-          );
+        terminal = dest != Param.UNRESOLVED;
+      }
 
-          // Jumps are terminal
-          break outer;
+      case JMP_CMP, JMP_CMP_0 -> {
+        final int dest = op.params[op.params.length - 1].resolvedValue;
+
+        if(dest != Param.UNRESOLVED) {
+          this.push(PROBE_BRANCH, resumeOffset, 0, 0);
+          this.push(PROBE_BRANCH, dest, 0, 0);
+        } else {
+          LOGGER.warn("Skipping %s at %x due to unknowable parameter", op.type, this.state.headerOffset());
         }
 
-        case JMP_TABLE -> {
-          op.params[1].resolvedValue.ifPresentOrElse(tableOffset -> {
-            if(tableOffset != 0) { // Table out of bounds gets replaced with 0 above
-              if(op.params[1].type.isInlineTable()) {
-                this.probeTableOfTables(script, script.jumpTableDests, tableOffset);
-              } else {
-                this.probeTableOfBranches(script, script.jumpTableDests, tableOffset);
-              }
-            }
-          }, () -> LOGGER.warn("Skipping JMP_TABLE at %x due to unknowable parameter", this.state.headerOffset()));
+        // Jumps are terminal
+        terminal = true;
+      }
 
-          // Jumps are terminal
-          break outer;
-        }
+      case JMP_TABLE -> {
+        this.pushTable(op, JUMP_TABLE_DESTS);
 
-        case GOSUB -> op.params[0].resolvedValue.ifPresentOrElse(offset1 -> {
-          script.subs.add(offset1);
-          this.probeBranch(script, offset1);
-        }, () -> LOGGER.warn("Skipping GOSUB at %x due to unknowable parameter", this.state.headerOffset()));
+        // Jumps are terminal
+        terminal = true;
+      }
 
-        case GOSUB_TABLE -> op.params[1].resolvedValue.ifPresentOrElse(tableOffset -> {
-          if(tableOffset != 0) { // Table out of bounds gets replaced with 0 above
-            if(op.params[1].type.isInlineTable()) {
-              this.probeTableOfTables(script, script.subs, tableOffset);
-            } else {
-              this.probeTableOfBranches(script, script.subs, tableOffset);
-            }
-          }
-        }, () -> LOGGER.warn("Skipping GOSUB_TABLE at %x due to unknowable parameter", this.state.headerOffset()));
+      case GOSUB -> {
+        final int dest = op.params[0].resolvedValue;
 
-        case REWIND, RETURN, DEALLOCATE, DEALLOCATE82, CONSUME -> {
-          break outer;
+        if(dest != Param.UNRESOLVED) {
+          this.addDestination(script, SUBS, dest);
+          this.push(PROBE_BRANCH, dest, 0, 0);
+        } else {
+          LOGGER.warn("Skipping GOSUB at %x due to unknowable parameter", this.state.headerOffset());
         }
+      }
+
+      case GOSUB_TABLE -> this.pushTable(op, SUBS);
+
+      case REWIND, RETURN, DEALLOCATE, DEALLOCATE82, CONSUME -> terminal = true;
+
+      // Don't need to handle re-entry because we're already probing all entry points
+      // case FORK_REENTER -> System.err.printf("Unhandled FORK_REENTER @ %x", this.state.headerOffset());
 
-        // Don't need to handle re-entry because we're already probing all entry points
-        // case FORK_REENTER -> System.err.printf("Unhandled FORK_REENTER @ %x", this.state.headerOffset());
+      case FORK -> {
+        final int dest = op.params[1].resolvedValue;
 
-        case FORK -> op.params[1].resolvedValue.ifPresentOrElse(offset1 -> {
-          script.reentries.add(offset1);
-          this.probeBranch(script, offset1);
-        }, () -> LOGGER.warn("Skipping FORK at %x due to unknowable parameter", this.state.headerOffset()));
+        if(dest != Param.UNRESOLVED) {
+          this.addDestination(script, REENTRIES, dest);
+          this.push(PROBE_BRANCH, dest, 0, 0);
+        } else {
+          LOGGER.warn("Skipping FORK at %x due to unknowable parameter", this.state.headerOffset());
+        }
       }
     }
 
-    this.state.headerOffset(oldHeaderOffset);
-    this.state.currentOffset(oldCurrentOffset);
-  }
+    if(this.worklistSize == worklistStart) {
+      return !terminal;
+    }
 
-  private void probeTableOfTables(final Script script, final Set<Integer> tableDestinations, final int tableAddress) {
-    this.probeTable(script, script.subTables, tableDestinations, tableAddress, subtableAddress -> !this.isProbablyOp(script, subtableAddress), subtableAddress -> this.probeTableOfBranches(script, tableDestinations, subtableAddress));
-  }
+    // Destinations were pushed in discovery order, flip them so the first one is probed first
+    this.reverseWorklist(worklistStart);
+
+    if(!terminal) {
+      this.insertWorklist(worklistStart, RESUME_BRANCH, resumeOffset, 0, 0);
+    }
 
-  private void probeTableOfBranches(final Script script, final Set<Integer> tableDestinations, final int subtableAddress) {
-    this.probeTable(script, script.subTables, tableDestinations, subtableAddress, this::isValidOp, branchAddress -> this.probeBranch(script, branchAddress));
+    return false;
   }
 
-  private void probeTable(final Script script, final Set<Integer> tables, final Set<Integer> tableDestinations, final int tableAddress, final Predicate<Integer> destinationAddressHeuristic, final Consumer<Integer> visitor) {
-    if(tables.contains(tableAddress)) {
+  /** Queues the table a JMP_TABLE or GOSUB_TABLE op points to */
+  private void pushTable(final Op op, final int tableDestinationsId) {
+    final int tableOffset = op.params[1].resolvedValue;
+
+    if(tableOffset == Param.UNRESOLVED) {
+      LOGGER.warn("Skipping %s at %x due to unknowable parameter", op.type, this.state.headerOffset());
       return;
     }
 
-    tables.add(tableAddress);
+    if(tableOffset != 0) { // Table out of bounds gets replaced with 0 above
+      this.push(op.params[1].type.isInlineTable() ? PROBE_TABLE_OF_TABLES : PROBE_TABLE_OF_BRANCHES, tableOffset, tableDestinationsId, 0);
+    }
+  }
+
+  /**
+   * Reads a table whose entries are either subtables ({@link #PROBE_TABLE_OF_TABLES}) or branches
+   * ({@link #PROBE_TABLE_OF_BRANCHES}), then queues its destinations with that kind of probe.
+   */
+  private void probeTable(final Script script, final int tableDestinationsId, final int tableAddress, final int kind) {
+    if(this.events != null) {
+      final int event = this.claimSegment(LOG_TABLE, tableAddress);
+
+      if(event == -1) {
+        return;
+      }
+
+      this.push(END_SEGMENT, event, 0, 0);
+    } else if(script.subTables.contains(tableAddress)) {
+      return;
+    } else {
+      script.subTables.add(tableAddress);
+    }
 
+    final String labelPrefix = "JMP_" + Integer.toHexString(tableAddress) + '_';
     int earliestDestination = this.state.length();
     int latestDestination = 0;
-    final List<Integer> destinations = new ArrayList<>();
-    final List<String> labels = new ArrayList<>();
-    for(int entryAddress = tableAddress; entryAddress <= this.state.length() - 4 && script.entries[entryAddress / 4] == null && (this.state.wordAt(entryAddress) > 0 ? entryAddress < earliestDestination : entryAddress > latestDestination) && (!this.isProbablyOp(script, entryAddress) || this.isValidOp(tableAddress + this.state.wordAt(entryAddress) * 0x4)); entryAddress += 0x4) {
+    int count = 0;
+    for(int entryAddress = tableAddress; entryAddress <= this.state.length() - 4 && this.entryAt(script, entryAddress / 4) == null && (this.state.wordAt(entryAddress) > 0 ? entryAddress < earliestDestination : entryAddress > latestDestination) && (!this.isProbablyOp(script, entryAddress) || this.isValidOp(tableAddress + this.state.wordAt(entryAddress) * 0x4)); entryAddress += 0x4) {
+      if(this.tableFull(script, tableAddress, count)) {
+        break;
+      }
+
       final int destAddress = tableAddress + this.state.wordAt(entryAddress) * 0x4;
 
       if(destAddress < 0x4 || destAddress > this.state.length() - 0x4) {
         break;
       }
 
-      if(!destinationAddressHeuristic.test(destAddress)) {
+      if(kind == PROBE_TABLE_OF_TABLES ? this.isProbablyOp(script, destAddress) : !this.isValidOp(destAddress)) {
         break;
       }
 
@@ -308,58 +1061,125 @@ public class Disassembler {
         latestDestination = destAddress;
       }
 
-      tableDestinations.add(destAddress);
-      destinations.add(destAddress);
-      labels.add(script.addLabel(destAddress, "JMP_%x_%d".formatted(tableAddress, labels.size())));
+      this.addDestination(script, tableDestinationsId, destAddress);
+      this.addTableScratch(count++, destAddress);
     }
 
-    if(labels.isEmpty()) {
+    if(count == 0) {
       throw new RuntimeException("Empty table at 0x%x".formatted(tableAddress));
     }
 
-    script.entries[tableAddress / 0x4] = new PointerTable(tableAddress, labels.toArray(String[]::new));
+    final PointerTable table = new PointerTable(tableAddress, new String[count]);
+    for(int i = 0; i < count; i++) {
+      table.labels[i] = this.addTableLabel(script, table, i, this.tableScratch[i], labelPrefix);
+    }
+
+    this.setEntry(script, tableAddress / 0x4, table);
+
+    // Visit tables in reverse order so that it's easier to determine where tables end. The worklist is LIFO, so queue them in ascending order.
+    Arrays.sort(this.tableScratch, 0, count);
 
-    // Visit tables in reverse order so that it's easier to determine where tables end
-    destinations.stream().distinct().sorted(Comparator.reverseOrder()).forEach(visitor);
+    for(int i = 0; i < count; i++) {
+      if(i == 0 || this.tableScratch[i] != this.tableScratch[i - 1]) {
+        if(kind == PROBE_TABLE_OF_TABLES) {
+          this.push(PROBE_TABLE_OF_BRANCHES, this.tableScratch[i], tableDestinationsId, 0);
+        } else {
+          this.push(PROBE_BRANCH, this.tableScratch[i], 0, 0);
+        }
+      }
+    }
+  }
+
+  private void addTableScratch(final int index, final int value) {
+    if(index == this.tableScratch.length) {
+      this.tableScratch = Arrays.copyOf(this.tableScratch, this.tableScratch.length * 2);
+    }
+
+    this.tableScratch[index] = value;
+  }
+
+  /** @return the script set with this id, or null for {@link #DISCARDED_DESTS} */
+  private static AddressSet destinationSet(final Script script, final int id) {
+    return switch(id) {
+      case JUMP_TABLE_DESTS -> script.jumpTableDests;
+      case SUBS -> script.subs;
+      case REENTRIES -> script.reentries;
+      default -> null;
+    };
+  }
+
+  private void push(final int kind, final int a, final int b, final int c) {
+    if(this.worklistSize == this.worklist.length) {
+      this.worklist = Arrays.copyOf(this.worklist, this.worklist.length * 2);
+    }
+
+    this.worklist[this.worklistSize] = kind;
+    this.worklist[this.worklistSize + 1] = a;
+    this.worklist[this.worklistSize + 2] = b;
+    this.worklist[this.worklistSize + 3] = c;
+    this.worklistSize += 4;
+  }
+
+  /** Inserts a task below everything queued since {@code start} */
+  private void insertWorklist(final int start, final int kind, final int a, final int b, final int c) {
+    this.push(kind, a, b, c);
+    System.arraycopy(this.worklist, start, this.worklist, start + 4, this.worklistSize - start - 4);
+    this.worklist[start] = kind;
+    this.worklist[start + 1] = a;
+    this.worklist[start + 2] = b;
+    this.worklist[start + 3] = c;
+  }
+
+  /** Reverses the order of the tasks queued since {@code start} */
+  private void reverseWorklist(final int start) {
+    for(int lo = start, hi = this.worklistSize - 4; lo < hi; lo += 4, hi -= 4) {
+      for(int n = 0; n < 4; n++) {
+        final int tmp = this.worklist[lo + n];
+        this.worklist[lo + n] = this.worklist[hi + n];
+        this.worklist[hi + n] = tmp;
+      }
+    }
   }
 
-  private void handlePointerTable(final Script script, final Op op, final int paramIndex, final int tableAddress, final List<Runnable> buildStrings) {
+  private void handlePointerTable(final Script script, final Op op, final int paramIndex, final int tableAddress) {
+    if(this.events != null) { // Where the table ends depends on the entries around it, see LOG_POINTER_TABLE
+      this.log(LOG_POINTER_TABLE, paramIndex, tableAddress, 0, op);
+      return;
+    }
+
     if(tableAddress / 4 >= script.entries.length) {
       LOGGER.warn("Op %s param %d points to invalid pointer table 0x%x", op, paramIndex, tableAddress);
       return;
     }
 
-    if(script.entries[tableAddress / 0x4] != null) {
+    if(this.entryAt(script, tableAddress / 0x4) != null) {
       return;
     }
 
-    final List<Integer> destinations = new ArrayList<>();
     int entryCount = 0;
 
     int earliestDestination = this.state.length();
     int latestDestination = 0;
-    for(int entryAddress = tableAddress; entryAddress <= this.state.length() - 4 && script.entries[entryAddress / 4] == null && (this.state.wordAt(entryAddress) > 0 ? entryAddress < earliestDestination : entryAddress > latestDestination); entryAddress += 0x4) {
+    for(int entryAddress = tableAddress; entryAddress <= this.state.length() - 4 && this.entryAt(script, entryAddress / 4) == null && (this.state.wordAt(entryAddress) > 0 ? entryAddress < earliestDestination : entryAddress > latestDestination); entryAddress += 0x4) {
+      if(this.tableFull(script, tableAddress, entryCount)) {
+        break;
+      }
+
       int destination = tableAddress + this.state.wordAt(entryAddress) * 0x4;
 
       if(op.type == OpType.CALL && "string".equalsIgnoreCase(this.meta.methods[op.headerParam].params[paramIndex].type)) {
-        if(script.entries[entryAddress / 4] instanceof Op) {
+        if(this.entryAt(script, entryAddress / 4) instanceof Op) {
           break;
         }
 
         if(this.isProbablyOp(script, entryAddress)) {
-          boolean foundTerminator = false;
+          // Look for a string terminator at the destination, it doesn't count if we run into another entry first
+          final int terminator = this.nextTerminator(destination / 4);
+          boolean foundTerminator = terminator < destination / 4 + 300;
 
-          // Look for a string terminator at the destination
-          for(int i = destination / 4; i < destination / 4 + 300; i++) {
-            // We ran into another entry or the end of the script
-            if(i >= script.entries.length || script.entries[i] != null) {
-              break;
-            }
-
-            final int word = this.state.wordAt(i * 0x4);
-            if((word & 0xffff) == 0xa0ff || (word >> 16 & 0xffff) == 0xa0ff) {
-              foundTerminator = true;
-              break;
+          for(int i = destination / 4; foundTerminator && i <= terminator; i++) {
+            if(this.entryAt(script, i) != null) {
+              foundTerminator = false;
             }
           }
 
@@ -387,37 +1207,34 @@ public class Disassembler {
         destination = tableAddress + this.state.wordAt(destination) * 0x4;
       }
 
-      destinations.add(destination);
-      entryCount++;
+      this.addTableScratch(entryCount++, destination);
     }
 
-    final String[] labels = new String[entryCount];
+    final String labelPrefix = "PTR_" + Integer.toHexString(tableAddress) + '_';
+    final PointerTable table = new PointerTable(tableAddress, new String[entryCount]);
     for(int entryIndex = 0; entryIndex < entryCount; entryIndex++) {
-      labels[entryIndex] = script.addLabel(destinations.get(entryIndex), "PTR_%x_%d".formatted(tableAddress, entryIndex));
+      table.labels[entryIndex] = script.addLabel(tableAddress + entryIndex * 0x4, this.tableScratch[entryIndex], labelPrefix, entryIndex);
     }
 
-    final PointerTable table = new PointerTable(tableAddress, labels);
-    script.entries[tableAddress / 0x4] = table;
+    this.setEntry(script, tableAddress / 0x4, table);
 
     // Add string entries if appropriate
     if(op.type == OpType.CALL) {
       if("string".equalsIgnoreCase(this.meta.methods[op.headerParam].params[paramIndex].type)) {
-        buildStrings.add(() -> {
-          //IMPORTANT: we need to remove any extra elements that were truncated by the table overrun detector
-          while(destinations.size() > table.labels.length) {
-            destinations.removeLast();
-          }
+        final int[] destinations = Arrays.copyOf(this.tableScratch, entryCount);
 
-          final List<Integer> sorted = destinations.stream()
+        script.buildStrings.add(() -> {
+          //IMPORTANT: we need to ignore any extra elements that were truncated by the table overrun detector
+          final int[] sorted = Arrays.stream(destinations, 0, table.labels.length)
             .distinct()
-            .sorted(Integer::compareTo)
-            .toList();
+            .sorted()
+            .toArray();
 
-          for(int i = 0; i < sorted.size(); i++) {
-            if(i < sorted.size() - 1) {
-              script.strings.add(new StringInfo(sorted.get(i), sorted.get(i + 1) - sorted.get(i))); // String length is next string - this string
+          for(int i = 0; i < sorted.length; i++) {
+            if(i < sorted.length - 1) {
+              script.strings.add(new StringInfo(sorted[i], sorted[i + 1] - sorted[i])); // String length is next string - this string
             } else {
-              script.strings.add(new StringInfo(sorted.get(i), -1)); // We don't know the length
+              script.strings.add(new StringInfo(sorted[i], -1)); // We don't know the length
             }
           }
         });
@@ -427,39 +1244,147 @@ public class Disassembler {
 
   private void fillStrings(final Script script) {
     for(final StringInfo string : script.strings) {
-      this.fillString(script, string.start, string.maxLength);
+      if(this.pastDeadline()) {
+        script.diagnostics.add("Ran out of time filling strings, the rest are left as data");
+        break;
+      }
+
+      if(this.budget == null) {
+        this.fillString(script, string.start, string.maxLength);
+        continue;
+      }
+
+      try {
+        this.fillString(script, string.start, string.maxLength);
+      } catch(final RuntimeException e) {
+        script.diagnostics.add("String at %x skipped: %s".formatted(string.start, e.getMessage()));
+      }
     }
   }
 
   private void fillString(final Script script, final int address, final int maxLength) {
-    final List<Integer> chars = new ArrayList<>();
+    final int limit = maxLength != -1 ? maxLength : script.entries.length * 0x4 - address;
+    final int[] chars = new int[Math.max(0, this.charsBeforeTerminator(address, limit))];
 
-    for(int i = 0; i < (maxLength != -1 ? maxLength : script.entries.length * 0x4 - address); i++) {
-      final int chr = this.state.wordAt(address + i / 2 * 0x4) >>> i % 2 * 16 & 0xffff;
+    for(int i = 0; i < chars.length; i++) {
+      chars[i] = this.state.wordAt(address + i / 2 * 0x4) >>> i % 2 * 16 & 0xffff;
+    }
 
-      // String end
-      if(chr == 0xa0ff) {
-        break;
+    final LodString string = new LodString(address, chars);
+
+    for(int i = 0; i < Math.max(1, string.chars.length / 2); i++) {
+      script.entries[address / 0x4 + i] = string;
+    }
+  }
+
+  /** @return the number of chars in the string at this address, up to the limit */
+  private int charsBeforeTerminator(final int address, final int limit) {
+    if((address & 0x3) == 0 && address >= 0 && address < this.state.length()) {
+      final int terminator = this.nextTerminator(address / 0x4);
+
+      if(terminator == NO_TERMINATOR) {
+        return limit;
       }
 
-      chars.add(chr);
+      final int chars = (terminator - address / 0x4) * 2 + ((this.state.wordAt(terminator * 0x4) & 0xffff) == 0xa0ff ? 0 : 1);
+      return Math.min(chars, limit);
     }
 
-    final LodString string = new LodString(address, chars.stream().mapToInt(Integer::intValue).toArray());
+    // Strings should always be word-aligned, if not we have to look for the terminator char by char
+    for(int i = 0; i < limit; i++) {
+      if((this.state.wordAt(address + i / 2 * 0x4) >>> i % 2 * 16 & 0xffff) == 0xa0ff) {
+        return i;
+      }
+    }
 
-    for(int i = 0; i < Math.max(1, string.chars.length / 2); i++) {
-      script.entries[address / 0x4 + i] = string;
+    return limit;
+  }
+
+  /** @return the index of the first word at or after this one that contains a string terminator, or {@link #NO_TERMINATOR} */
+  private int nextTerminator(final int index) {
+    if(index < 0) {
+      return index; // Let the caller fail the same way it would have at a bad index
+    }
+
+    if(this.nextTerminator == null) {
+      return this.scanTerminator(index);
+    }
+
+    return index < this.nextTerminator.length ? this.nextTerminator[index] : NO_TERMINATOR;
+  }
+
+  /** {@link #nextTerminator} for a slice, reading forward from the word instead of indexing the whole script up front */
+  private int scanTerminator(final int index) {
+    final int length = this.state.length() / 4;
+    int i = index;
+
+    // Stop early on reaching the last scan, so asking about each word of a string backwards doesn't rescan it every time
+    while(i < length && (i < this.scannedFrom || i > this.scannedTo) && !isTerminator(this.state.wordAt(i * 0x4))) {
+      i++;
+    }
+
+    if(i >= this.scannedFrom && i <= this.scannedTo) {
+      this.scannedFrom = Math.min(index, this.scannedFrom);
+      return this.scannedTerminator;
+    }
+
+    this.scannedFrom = index;
+    this.scannedTo = i;
+    this.scannedTerminator = i < length ? i : NO_TERMINATOR;
+    return this.scannedTerminator;
+  }
+
+  private static boolean isTerminator(final int word) {
+    return (word & 0xffff) == 0xa0ff || (word >>> 16) == 0xa0ff;
+  }
+
+  /** Finds every string terminator in one pass, so string detection never has to scan ahead for them */
+  private int[] indexTerminators() {
+    final int[] next = new int[this.state.length() / 4];
+    int terminator = NO_TERMINATOR;
+
+    for(int i = next.length - 1; i >= 0; i--) {
+      if(isTerminator(this.state.wordAt(i * 0x4))) {
+        terminator = i;
+      }
+
+      next[i] = terminator;
     }
+
+    return next;
   }
 
+  /** Covers each stretch of unclaimed words with one {@link DataRun} over the script buffer */
   private void fillData(final Script script) {
     for(int i = 0; i < script.entries.length; i++) {
       if(script.entries[i] == null) {
-        script.entries[i] = new Data(i * 0x4, this.state.wordAt(i * 0x4));
+        int end = i + 1;
+        while(end < script.entries.length && script.entries[end] == null) {
+          end++;
+        }
+
+        final DataRun run = new DataRun(i * 0x4, this.state.slice(i * 0x4, (end - i) * 0x4));
+        Arrays.fill(script.entries, i, end, run);
+        i = end - 1;
       }
     }
   }
 
+  /**
+   * The entrypoints in the order a HashSet of them iterates, which is the order they have always been probed in. Probe
+   * order decides which name wins at an address with several labels, so keeping it keeps decompiled text (and text
+   * patches made against it) the same as earlier versions produced.
+   */
+  private int[] entrypointProbeOrder(final Script script) {
+    final Set<Integer> legacyOrder = new HashSet<>();
+
+    for(int i = 0; i < script.entries.length && script.entries[i] instanceof Entrypoint; i++) {
+      legacyOrder.add(this.state.wordAt(i * 0x4));
+    }
+
+    return legacyOrder.stream().mapToInt(Integer::intValue).toArray();
+  }
+
   private void getEntrypoints(final Script script) {
     for(int i = 0; i < 0x20 && this.state.hasMore(); i++) { // Most have 0x10, some have less, player_combat_script is the only one I've seen with 0x20
       final int entrypoint = this.state.currentWord();
@@ -473,6 +1398,7 @@ public class Disassembler {
       script.entries[i] = new Entrypoint(i * 0x4, label);
       script.entrypoints.add(entrypoint);
       script.addUniqueLabel(entrypoint, label);
+      script.xrefs.add(i * 0x4, entrypoint, label);
       this.state.advance();
     }
   }
@@ -482,31 +1408,25 @@ public class Disassembler {
       return null;
     }
 
-    final int opcode = this.state.wordAt(offset);
-    final OpType type = OpType.byOpcode(opcode & 0xff);
-
-    if(type == null) {
+    if(!this.isValidHeader(offset)) {
       return null;
     }
 
-    // CALL with function index out of range
-    if(type == OpType.CALL && ((opcode >>> 16) >= 1024)) {
-      return null;
-    }
+    final int opcode = this.state.wordAt(offset);
+    return new Op(offset, OpType.byOpcode(opcode & 0xff), opcode >> 16, opcode >> 8 & 0xff);
+  }
 
-    //TODO once we implement all subfuncs, add their param counts too
-    final int paramCount = opcode >> 8 & 0xff;
-    if(type != OpType.CALL && type.paramNames.length != paramCount) {
-      return null;
+  /** Same checks as {@link #parseHeader} without building the op */
+  private boolean isValidHeader(final int offset) {
+    if(offset > this.state.length() - 4) {
+      return false;
     }
 
-    final int opParam = opcode >> 16;
-
-    if(type.headerParamName == null && opParam != 0) {
-      return null;
+    if((offset & 0x3) == 0 && offset >= 0) {
+      return this.classes.isValidHeader(offset / 0x4);
     }
 
-    return new Op(offset, type, opParam, paramCount);
+    return DecodeTable.isValidHeader(this.state.wordAt(offset));
   }
 
   private boolean isValidOp(final int offset) {
@@ -518,7 +1438,7 @@ public class Disassembler {
       return false;
     }
 
-    return this.parseHeader(offset) != null;
+    return this.isValidHeader(offset);
   }
 
   private boolean isProbablyOp(final Script script, int address) {
@@ -530,53 +1450,61 @@ public class Disassembler {
       return false;
     }
 
-    if(script.entries[address / 4] instanceof Op) {
+    if(this.entryAt(script, address / 4) instanceof Op) {
       return true;
     }
 
     final int testCount = 3;
     int certainty = 0;
     for(int opIndex = 0; opIndex < testCount; opIndex++) {
-      final Op op = this.parseHeader(address);
-
-      if(op == null) {
+      if(!this.isValidHeader(address)) {
         certainty -= testCount - opIndex;
         break;
       }
 
       certainty += opIndex + 1;
 
+      final int paramCount = OpType.byOpcode(this.state.wordAt(address) & 0xff).paramNames.length;
+
       // If we read valid params that aren't immediates, it's probably an op
       address += 0x4;
 
-      for(int paramIndex = 0; paramIndex < op.type.paramNames.length; paramIndex++) {
-        final ParameterType parameterType = ParameterType.byOpcode(this.state.wordAt(address) >>> 24);
+      for(int paramIndex = 0; paramIndex < paramCount; paramIndex++) {
+        final int paramWord = this.state.wordAt(address);
 
-        if(parameterType != ParameterType.IMMEDIATE) {
+        if(this.classes.isPlausibleParamType(address / 0x4)) {
           certainty += 1;
         }
 
-        address += parameterType.getWidth((String)null) * 0x4; //TODO
+        address += DecodeTable.paramWidth(paramWord) * 0x4;
       }
     }
 
     return certainty >= 2;
   }
 
-  private OptionalInt parseParamValue(final State state, final ParameterType param) {
-    final OptionalInt value = switch(param) {
-      case IMMEDIATE -> OptionalInt.of(state.currentWord());
-      case NEXT_IMMEDIATE -> OptionalInt.of(state.wordAt(state.currentOffset() + 4));
+  /** @return the param's value, or {@link Param#UNRESOLVED} if it depends on state only known at runtime */
+  private int parseParamValue(final State state, final ParameterType param) {
+    final int value = switch(param) {
+      case IMMEDIATE -> (state.currentWord());
+      case NEXT_IMMEDIATE -> (state.wordAt(state.currentOffset() + 4));
       //TODO case STORAGE is this possible?
-      case INLINE_1, INLINE_2, INLINE_TABLE_1, INLINE_TABLE_3 -> OptionalInt.of(state.headerOffset() + (short)state.currentWord() * 0x4);
-//      case INLINE_TABLE_1 -> OptionalInt.of(state.headerOffset() + ((short)state.currentWord() + state.wordAt(state.headerOffset() + (short)state.currentWord() * 0x4)) * 0x4);
-      case INLINE_TABLE_2, INLINE_TABLE_4 -> OptionalInt.of(state.headerOffset() + 0x4);
-      case INLINE_3 -> OptionalInt.of(state.headerOffset() + ((short)state.currentWord() + state.param2()) * 4);
-//      case INLINE_TABLE_3 -> OptionalInt.of(state.headerOffset() + ((short)state.currentWord() + state.wordAt(state.headerOffset() + ((short)state.currentWord() + state.param2()) * 0x4)) * 0x4);
-      default -> OptionalInt.empty();
+      case INLINE_1, INLINE_2, INLINE_TABLE_1, INLINE_TABLE_3 -> (state.headerOffset() + (short)state.currentWord() * 0x4);
+//      case INLINE_TABLE_1 -> (state.headerOffset() + ((short)state.currentWord() + state.wordAt(state.headerOffset() + (short)state.currentWord() * 0x4)) * 0x4);
+      case INLINE_TABLE_2, INLINE_TABLE_4 -> (state.headerOffset() + 0x4);
+      case INLINE_3 -> (state.headerOffset() + ((short)state.currentWord() + state.param2()) * 4);
+//      case INLINE_TABLE_3 -> (state.headerOffset() + ((short)state.currentWord() + state.wordAt(state.headerOffset() + ((short)state.currentWord() + state.param2()) * 0x4)) * 0x4);
+      default -> Param.UNRESOLVED;
     };
 
     this.state.advance(param.getWidth(state));
     return value;
   }
+
+  /** Thrown out of a probe when the budget runs out, never escapes {@link #disassemble} */
+  private static final class BudgetExceededException extends RuntimeException {
+    private BudgetExceededException(final String message) {
+      super(message, null, false, false);
+    }
+  }
 }
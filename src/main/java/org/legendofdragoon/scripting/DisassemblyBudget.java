@@ -0,0 +1,38 @@
+package org.legendofdragoon.scripting;
+
+import java.time.Duration;
+
+/**
+ * Limits on how much work {@link Disassembler} does on one script, for input that can't be trusted. Zero or null means
+ * no limit. Running out stops probing and returns what was found so far, see {@link org.legendofdragoon.scripting.tokens.Script#diagnostics}.
+ */
+public class DisassemblyBudget {
+  /** Branches probed, including entrypoints and table destinations */
+  public int maxBranches;
+  /** Entries read from any one table, longer tables are cut off here */
+  public int maxTableEntries;
+  /** Ops decoded plus table entries read, across the whole script */
+  public long maxProbeSteps;
+  /** Wall-clock time for the whole disassembly */
+  public Duration deadline;
+
+  public DisassemblyBudget maxBranches(final int maxBranches) {
+    this.maxBranches = maxBranches;
+    return this;
+  }
+
+  public DisassemblyBudget maxTableEntries(final int maxTableEntries) {
+    this.maxTableEntries = maxTableEntries;
+    return this;
+  }
+
+  public DisassemblyBudget maxProbeSteps(final long maxProbeSteps) {
+    this.maxProbeSteps = maxProbeSteps;
+    return this;
+  }
+
+  public DisassemblyBudget deadline(final Duration deadline) {
+    this.deadline = deadline;
+    return this;
+  }
+}
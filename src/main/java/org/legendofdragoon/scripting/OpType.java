@@ -1,5 +1,9 @@
 package org.legendofdragoon.scripting;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public enum OpType {
   YIELD(0, "yield"),
   REWIND(1, "rewind"),
@@ -73,24 +77,20 @@ public enum OpType {
     JMP_CMP_0.setCommentParamNames(new String[] {"left", "right", "addr"});
   }
 
-  public static OpType byOpcode(final int opcode) {
+  private static final Map<String, OpType> BY_NAME = new HashMap<>();
+
+  static {
     for(final OpType op : OpType.values()) {
-      if(op.opcode == opcode) {
-        return op;
-      }
+      BY_NAME.putIfAbsent(op.name.toLowerCase(Locale.ROOT), op); // Some names are shared, the first one wins
     }
+  }
 
-    return null;
+  public static OpType byOpcode(final int opcode) {
+    return DecodeTable.opType(opcode);
   }
 
   public static OpType byName(final String name) {
-    for(final OpType op : OpType.values()) {
-      if(op.name.equalsIgnoreCase(name)) {
-        return op;
-      }
-    }
-
-    return null;
+    return BY_NAME.get(name.toLowerCase(Locale.ROOT));
   }
 
   public final int opcode;
@@ -34,41 +34,42 @@ public enum ParameterType {
   ;
 
   public static ParameterType byOpcode(final int opcode) {
-    for(final ParameterType op : ParameterType.values()) {
-      if(op.opcode == opcode) {
-        return op;
-      }
-    }
-
-    return ParameterType.IMMEDIATE;
+    return DecodeTable.paramType(opcode);
   }
 
   public final int opcode;
+  /** Width in words, or 0 if it varies per param */
+  public final int width;
   private final ToIntFunction<String> stringToWidth;
   private final ToIntFunction<Param> paramToWidth;
   private final ToIntFunction<State> stateToWidth;
 
   ParameterType(final int opcode, final ToIntFunction<String> stringToWidth, final ToIntFunction<Param> paramToWidth, final ToIntFunction<State> stateToWidth) {
     this.opcode = opcode;
+    this.width = 0;
     this.stringToWidth = stringToWidth;
     this.paramToWidth = paramToWidth;
     this.stateToWidth = stateToWidth;
   }
 
   ParameterType(final int opcode, final int width) {
-    this(opcode, param -> width, param -> width, state -> width);
+    this.opcode = opcode;
+    this.width = width;
+    this.stringToWidth = null;
+    this.paramToWidth = null;
+    this.stateToWidth = null;
   }
 
   public int getWidth(final String param) {
-    return this.stringToWidth.applyAsInt(param);
+    return this.width != 0 ? this.width : this.stringToWidth.applyAsInt(param);
   }
 
   public int getWidth(final Param param) {
-    return this.paramToWidth.applyAsInt(param);
+    return this.width != 0 ? this.width : this.paramToWidth.applyAsInt(param);
   }
 
   public int getWidth(final State state) {
-    return this.stateToWidth.applyAsInt(state);
+    return this.width != 0 ? this.width : this.stateToWidth.applyAsInt(state);
   }
 
   /** table[index] */
@@ -10,21 +10,56 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
 import org.apache.logging.log4j.core.config.plugins.util.PluginManager;
+import org.legendofdragoon.scripting.batch.BatchFailure;
+import org.legendofdragoon.scripting.batch.BatchResult;
+import org.legendofdragoon.scripting.batch.BatchRunner;
+import org.legendofdragoon.scripting.batch.Bench;
+import org.legendofdragoon.scripting.batch.BlobIndex;
+import org.legendofdragoon.scripting.batch.BenchResult;
+import org.legendofdragoon.scripting.batch.BuildCache;
+import org.legendofdragoon.scripting.batch.RoundTrip;
+import org.legendofdragoon.scripting.fuzz.Fixtures;
+import org.legendofdragoon.scripting.fuzz.FuzzCase;
+import org.legendofdragoon.scripting.fuzz.Fuzzer;
+import org.legendofdragoon.scripting.generator.GeneratedScript;
+import org.legendofdragoon.scripting.generator.GeneratorOptions;
+import org.legendofdragoon.scripting.generator.ScriptGenerator;
+import org.legendofdragoon.scripting.generator.SyntheticMeta;
 import org.legendofdragoon.scripting.meta.Meta;
 import org.legendofdragoon.scripting.meta.MetaManager;
 import org.legendofdragoon.scripting.meta.NoSuchVersionException;
 import org.legendofdragoon.scripting.tokens.Script;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class Shell {
   private Shell() { }
@@ -36,9 +71,13 @@ public final class Shell {
 
   private static final Logger LOGGER = LogManager.getFormatterLogger();
 
-  public static void main(final String[] args) throws IOException, URISyntaxException, CsvException, NoSuchVersionException, PatchFailedException {
+  /** Inputs smaller than this are read onto the heap, mapping only pays off for big ones */
+  private static final long MAP_THRESHOLD = 1 << 20;
+  private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+  public static void main(final String[] args) throws IOException, URISyntaxException, CsvException, NoSuchVersionException, PatchFailedException, InterruptedException {
     if(args.length == 0) {
-      LOGGER.info("Commands: [v]ersions, [d]ecompile, [c]ompile, [g]enpatch, [a]pplypatch, [u]ndopatch");
+      LOGGER.info("Commands: [v]ersions, [d]ecompile, [c]ompile, [b]atch[d]ecompile, [b]atch[c]ompile, watch, verify, cluster, bench, generate, fuzz, [g]enpatch, [a]pplypatch, [u]ndopatch, daemon");
       System.exit(1);
       return;
     }
@@ -59,6 +98,51 @@ public final class Shell {
       return;
     }
 
+    if("bd".equals(args[0]) || "batchdecompile".equals(args[0])) {
+      System.exit(batchDecompile(args, metaManager) ? 0 : 1);
+      return;
+    }
+
+    if("bc".equals(args[0]) || "batchcompile".equals(args[0])) {
+      System.exit(batchCompile(args, metaManager, cacheDir) ? 0 : 1);
+      return;
+    }
+
+    if("watch".equals(args[0])) {
+      System.exit(watch(args, metaManager, cacheDir) ? 0 : 1);
+      return;
+    }
+
+    if("verify".equals(args[0])) {
+      System.exit(verify(args, metaManager) ? 0 : 1);
+      return;
+    }
+
+    if("cluster".equals(args[0])) {
+      System.exit(cluster(args, metaManager) ? 0 : 1);
+      return;
+    }
+
+    if("worker".equals(args[0])) {
+      System.exit(runWorker(args, metaManager) ? 0 : 1);
+      return;
+    }
+
+    if("bench".equals(args[0])) {
+      System.exit(bench(args, metaManager) ? 0 : 1);
+      return;
+    }
+
+    if("generate".equals(args[0])) {
+      System.exit(generate(args, cacheDir) ? 0 : 1);
+      return;
+    }
+
+    if("fuzz".equals(args[0])) {
+      System.exit(fuzz(args, metaManager) ? 0 : 1);
+      return;
+    }
+
     if("g".equals(args[0]) || "genpatch".equals(args[0])) {
       generateDiff(args);
       System.exit(0);
@@ -77,17 +161,13 @@ public final class Shell {
       return;
     }
 
-    final Options options = new Options();
-    options.addOption("v", "version", true, "The meta version to use");
-    options.addRequiredOption("i", "in", true, "The input file");
-    options.addRequiredOption("o", "out", true, "The output file");
-
-    if("d".equals(args[0]) || "decompile".equals(args[0])) {
-      options.addOption("b", "branch", true, "Force the decompiler to decompile this branch");
-      options.addOption("C", "no-comments", false, "Make translator not add any comments");
-      options.addOption("N", "no-names", false, "Remove friendly names from engine methods");
+    if("daemon".equals(args[0])) {
+      System.exit(runDaemon(args, metaManager) ? 0 : 1);
+      return;
     }
 
+    final Options options = fileOptions(args[0]);
+
     final CommandLine cmd;
     final CommandLineParser parser = new DefaultParser();
     final HelpFormatter helper = new HelpFormatter();
@@ -117,52 +197,853 @@ public final class Shell {
 
     switch(args[0]) {
       case "d", "decompile" -> {
-        final int[] branches;
-        final String[] branchesIn = cmd.getOptionValues("branch");
+        final int[] branches = parseBranches(cmd.getOptionValues("branch"));
         final boolean stripComments = cmd.hasOption("no-comments");
         final boolean stripNames = cmd.hasOption("no-names");
+        final boolean parallel = cmd.hasOption("parallel");
 
-        if(branchesIn == null) {
-          branches = new int[0];
-        } else {
-          branches = new int[branchesIn.length];
-          for(int i = 0; i < branchesIn.length; i++) {
-            branches[i] = Integer.parseInt(branchesIn[i], 16);
+        if(cmd.hasOption("only") || cmd.hasOption("at")) {
+          LOGGER.info("Decompiling part of %s...", inputFile);
+
+          try {
+            decompileSlice(meta, inputFile, outputFile, cmd.getOptionValue("only"), cmd.getOptionValue("at"), stripNames, stripComments);
+          } catch(final ParseException e) {
+            LOGGER.error(e.getMessage());
+            helper.printHelp("Usage:", options);
+            System.exit(1);
+            return;
           }
+        } else {
+          LOGGER.info("Decompiling %s...", inputFile);
+          decompile(meta, inputFile, outputFile, branches, stripNames, stripComments, parallel);
         }
+      }
 
-        LOGGER.info("Decompiling %s...", inputFile);
+      case "c", "compile" -> {
+        LOGGER.info("Compiling... %s", inputFile);
+        compile(meta, inputFile, outputFile);
+      }
 
-        final Disassembler disassembler = new Disassembler(meta);
-        final Translator translator = new Translator();
+      default -> {
+        LOGGER.info("Commands: [v]ersions, [d]ecompile, [c]ompile, [b]atch[d]ecompile, [b]atch[c]ompile, watch, verify, cluster, bench, generate, fuzz, [g]enpatch, [a]pplypatch, [u]ndopatch, daemon");
+        System.exit(1);
+      }
+    }
+  }
 
-        final byte[] bytes = Files.readAllBytes(inputFile);
-        final Script script = disassembler.disassemble(bytes, branches);
-        final String decompiledOutput = translator.translate(script, meta, stripNames, stripComments);
+  /** Options shared by the single-file decompile and compile commands */
+  static Options fileOptions(final String command) {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use");
+    options.addRequiredOption("i", "in", true, "The input file");
+    options.addRequiredOption("o", "out", true, "The output file");
+
+    if("d".equals(command) || "decompile".equals(command)) {
+      options.addOption("b", "branch", true, "Force the decompiler to decompile this branch");
+      options.addOption("C", "no-comments", false, "Make translator not add any comments");
+      options.addOption("N", "no-names", false, "Remove friendly names from engine methods");
+      options.addOption("P", "parallel", false, "Probe entrypoints in parallel (output is unchanged)");
+      options.addOption("e", "only", true, "Only decompile the code reachable from this entrypoint (e.g. ENTRYPOINT_3 or 3)");
+      options.addOption("a", "at", true, "Only decompile the code reachable from this hex address");
+    }
+
+    return options;
+  }
+
+  static int[] parseBranches(final String[] branchesIn) {
+    if(branchesIn == null) {
+      return new int[0];
+    }
+
+    final int[] branches = new int[branchesIn.length];
+    for(int i = 0; i < branchesIn.length; i++) {
+      branches[i] = Integer.parseInt(branchesIn[i], 16);
+    }
+
+    return branches;
+  }
+
+  static void decompile(final Meta meta, final Path inputFile, final Path outputFile, final int[] branches, final boolean stripNames, final boolean stripComments, final boolean parallel) throws IOException {
+    final ByteBuffer input = open(inputFile);
+    try {
+      decompile(meta, input, outputFile, branches, stripNames, stripComments, parallel);
+    } finally {
+      release(input);
+    }
+  }
+
+  static void decompile(final Meta meta, final ByteBuffer input, final Path outputFile, final int[] branches, final boolean stripNames, final boolean stripComments, final boolean parallel) throws IOException {
+    final Disassembler disassembler = new Disassembler(meta).parallel(parallel ? ForkJoinPool.commonPool() : null);
+    final Translator translator = new Translator();
+
+    final Script script = disassembler.disassemble(input, branches);
+    final String decompiledOutput = translator.translate(script, meta, stripNames, stripComments);
+
+    Files.createDirectories(outputFile.getParent());
+    Files.writeString(outputFile, decompiledOutput, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Decompiles only the code reachable from one entrypoint ({@code only}, either ENTRYPOINT_n or n) or hex address
+   * ({@code at}). Exactly one of them should be set.
+   *
+   * @throws ParseException if neither or both are set or the one that is isn't a number, before the input is read
+   */
+  static void decompileSlice(final Meta meta, final Path inputFile, final Path outputFile, final String only, final String at, final boolean stripNames, final boolean stripComments) throws IOException, ParseException {
+    if((only == null) == (at == null)) {
+      throw new ParseException("Give either --only or --at");
+    }
+
+    final int root = only != null ? parseSliceOption("only", only, "ENTRYPOINT_", 10) : parseSliceOption("at", at, "0x", 16);
 
-        Files.createDirectories(outputFile.getParent());
-        Files.writeString(outputFile, decompiledOutput, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    final Disassembler disassembler = new Disassembler(meta);
+    final Translator translator = new Translator();
+    final ByteBuffer input = open(inputFile);
+
+    final Script script;
+    try {
+      script = only != null ? disassembler.disassembleEntrypoint(input, root) : disassembler.disassembleFrom(input, root);
+    } finally {
+      release(input);
+    }
+
+    final String decompiledOutput = translator.translate(script, meta, stripNames, stripComments);
+
+    Files.createDirectories(outputFile.getParent());
+    Files.writeString(outputFile, decompiledOutput, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Reads a file onto the heap, or if it's at least {@link #MAP_THRESHOLD} bytes maps it read-only so it can be
+   * disassembled in place. Give the buffer to {@link #release} once nothing reads it any more.
+   */
+  static ByteBuffer open(final Path file) throws IOException {
+    try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+
+      if(size < MAP_THRESHOLD) {
+        final ByteBuffer bytes = ByteBuffer.allocate((int)size);
+        while(bytes.hasRemaining() && channel.read(bytes) != -1) {
+          // Keep reading until the buffer is full
+        }
+
+        return bytes.flip();
       }
 
-      case "c", "compile" -> {
-        LOGGER.info("Compiling... %s", inputFile);
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  /**
+   * Unmaps a buffer from {@link #open} now rather than whenever it's collected, which on Windows would keep the file
+   * locked until then. Nothing may read the buffer or a view of it afterwards. Scripts don't keep one, see
+   * {@link org.legendofdragoon.scripting.tokens.DataRun}. Heap buffers are left alone.
+   */
+  static void release(final ByteBuffer buffer) {
+    if(buffer instanceof MappedByteBuffer && INVOKE_CLEANER != null) {
+      try {
+        INVOKE_CLEANER.invokeExact(buffer);
+      } catch(final Throwable e) {
+        LOGGER.warn("Failed to unmap input, it will be released when collected", e);
+      }
+    }
+  }
+
+  /** {@code sun.misc.Unsafe.invokeCleaner} bound to the instance, or null if this JVM doesn't have it */
+  private static MethodHandle findCleaner() {
+    try {
+      final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class)).bindTo(theUnsafe.get(null));
+    } catch(final ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  static void compile(final Meta meta, final Path inputFile, final Path outputFile) throws IOException {
+    compile(meta, Files.readString(inputFile), outputFile);
+  }
+
+  private static void compile(final Meta meta, final String input, final Path outputFile) throws IOException {
+    final Compiler compiler = new Compiler();
+    final Lexer lexer = new Lexer(meta);
 
-        final Compiler compiler = new Compiler();
-        final Lexer lexer = new Lexer(meta);
+    final Script lexedDecompiledSource = lexer.lex(input);
+    final int[] recompiledSource = compiler.compile(lexedDecompiledSource);
 
-        final String input = Files.readString(inputFile);
-        final Script lexedDecompiledSource = lexer.lex(input);
-        final int[] recompiledSource = compiler.compile(lexedDecompiledSource);
+    Files.createDirectories(outputFile.getParent());
+    Files.write(outputFile, intsToBytes(recompiledSource), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * Decompiles every file under the input directory, mirroring the tree under the output directory. With an index, the
+   * input is instead one blob holding many scripts, and each is decompiled straight out of the mapped blob.
+   */
+  private static boolean batchDecompile(final String[] args, final MetaManager metaManager) throws IOException, CsvException, NoSuchVersionException {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use");
+    options.addRequiredOption("i", "in", true, "The input directory, or the blob file when an index is given");
+    options.addRequiredOption("o", "out", true, "The output directory");
+    options.addOption("x", "index", true, "Decompile the scripts in the input blob listed in this index file (one \"offset length name\" line each)");
+    options.addOption("g", "glob", true, "Only decompile files whose path relative to the input directory (or name in the index) matches this glob");
+    options.addOption("t", "threads", true, "The number of worker threads (defaults to the number of processors)");
+    options.addOption("C", "no-comments", false, "Make translator not add any comments");
+    options.addOption("N", "no-names", false, "Remove friendly names from engine methods");
+
+    final CommandLine cmd;
+    final int threads;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+      threads = positiveInt(cmd, "threads", Runtime.getRuntime().availableProcessors());
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Path inputDir = Paths.get(cmd.getOptionValue("in")).toAbsolutePath();
+    final Path outputDir = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+    final boolean stripComments = cmd.hasOption("no-comments");
+    final boolean stripNames = cmd.hasOption("no-names");
+
+    if(cmd.hasOption("index")) {
+      return blobDecompile(cmd, metaManager, inputDir, outputDir, threads, stripNames, stripComments);
+    }
+
+    if(!Files.isDirectory(inputDir)) {
+      LOGGER.error("Error: input directory does not exist");
+      return false;
+    }
+
+    final String version = cmd.getOptionValue("version", "snapshot");
+
+    LOGGER.info("Loading meta %s...", version);
+    final Meta meta = metaManager.loadMeta(version);
+
+    final List<Path> files = BatchRunner.collectFiles(inputDir, cmd.getOptionValue("glob", "**"));
+    LOGGER.info("Decompiling %d files from %s using %d threads...", files.size(), inputDir, threads);
+
+    final BatchResult result = new BatchRunner(threads).run(files, inputFile -> {
+      final Path outputFile = outputDir.resolve(inputDir.relativize(inputFile) + ".txt");
+      decompile(meta, inputFile, outputFile, new int[0], stripNames, stripComments, false);
+    });
+
+    logBatchResult("Decompiled", result);
+    return result.failures.isEmpty();
+  }
+
+  /** Decompiles the scripts listed in a blob's index, each from a slice of the mapped blob, to name.txt under the output directory */
+  private static boolean blobDecompile(final CommandLine cmd, final MetaManager metaManager, final Path blobFile, final Path outputDir, final int threads, final boolean stripNames, final boolean stripComments) throws IOException, CsvException, NoSuchVersionException {
+    final Path indexFile = Paths.get(cmd.getOptionValue("index")).toAbsolutePath();
+
+    if(!Files.isRegularFile(blobFile)) {
+      LOGGER.error("Error: input blob does not exist");
+      return false;
+    }
+
+    if(!Files.isRegularFile(indexFile)) {
+      LOGGER.error("Error: index file does not exist");
+      return false;
+    }
+
+    final BlobIndex index;
+    try {
+      index = BlobIndex.read(indexFile, Files.size(blobFile));
+    } catch(final IllegalArgumentException e) {
+      LOGGER.error("Error: %s", e.getMessage());
+      return false;
+    }
+
+    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + cmd.getOptionValue("glob", "**"));
+    final List<Path> names = index.names().stream().filter(matcher::matches).toList();
+
+    final String version = cmd.getOptionValue("version", "snapshot");
+
+    LOGGER.info("Loading meta %s...", version);
+    final Meta meta = metaManager.loadMeta(version);
+
+    LOGGER.info("Decompiling %d of %d scripts from %s using %d threads...", names.size(), index.size(), blobFile, threads);
+
+    final ByteBuffer blob = open(blobFile);
+    final BatchResult result;
+    try {
+      result = new BatchRunner(threads).run(names, name -> {
+        final Path outputFile = outputDir.resolve(name + ".txt");
+        decompile(meta, index.get(name).slice(blob), outputFile, new int[0], stripNames, stripComments, false);
+      });
+    } finally {
+      release(blob); // Every task has finished with its slice once run returns
+    }
+
+    // Rejected names fail on their own like any other script, the rest of the blob is still decompiled
+    for(final String rejected : index.rejected) {
+      LOGGER.error("Failed: %s", rejected);
+    }
+
+    logBatchResult("Decompiled", result);
+
+    if(!index.rejected.isEmpty()) {
+      LOGGER.info("%d names in the index were rejected", index.rejected.size());
+    }
 
-        Files.createDirectories(outputFile.getParent());
-        Files.write(outputFile, intsToBytes(recompiledSource), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    return result.failures.isEmpty() && index.rejected.isEmpty();
+  }
+
+  /** Compiles every changed source under the input directory, skipping ones whose build cache entry is still valid */
+  private static boolean batchCompile(final String[] args, final MetaManager metaManager, final Path cacheDir) throws IOException, CsvException, NoSuchVersionException {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use");
+    options.addRequiredOption("i", "in", true, "The input directory");
+    options.addRequiredOption("o", "out", true, "The output directory");
+    options.addOption("g", "glob", true, "Only compile files whose path relative to the input directory matches this glob (defaults to **.txt)");
+    options.addOption("t", "threads", true, "The number of worker threads (defaults to the number of processors)");
+    options.addOption("f", "force", false, "Ignore the build cache and recompile everything");
+
+    final CommandLine cmd;
+    final int threads;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+      threads = positiveInt(cmd, "threads", Runtime.getRuntime().availableProcessors());
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Path inputDir = Paths.get(cmd.getOptionValue("in")).toAbsolutePath();
+    final Path outputDir = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+    final boolean force = cmd.hasOption("force");
+
+    if(!Files.isDirectory(inputDir)) {
+      LOGGER.error("Error: input directory does not exist");
+      return false;
+    }
+
+    final String version = cmd.getOptionValue("version", "snapshot");
+
+    LOGGER.info("Loading meta %s...", version);
+    final Meta meta = metaManager.loadMeta(version);
+    final BuildCache cache = new BuildCache(cacheDir.resolve("build"), version, meta);
+
+    final List<Path> files = BatchRunner.collectFiles(inputDir, cmd.getOptionValue("glob", "**.txt"));
+    LOGGER.info("Compiling %d files from %s using %d threads...", files.size(), inputDir, threads);
+
+    final AtomicInteger skipped = new AtomicInteger();
+    final BatchResult result = new BatchRunner(threads).run(files, inputFile -> {
+      final Path outputFile = compileOutputFile(inputDir, outputDir, inputFile);
+
+      final byte[] source = Files.readAllBytes(inputFile);
+      final String key = cache.key(source);
+
+      if(!force && cache.isUpToDate(outputFile, key)) {
+        skipped.incrementAndGet();
+        return;
       }
 
-      default -> {
-        LOGGER.info("Commands: [v]ersions, [d]ecompile, [c]ompile, [g]enpatch, [a]pplypatch, [u]ndopatch");
-        System.exit(1);
+      compile(meta, new String(source, StandardCharsets.UTF_8), outputFile);
+      cache.store(outputFile, key);
+    });
+
+    logBatchResult("Processed", result);
+    LOGGER.info("%d rebuilt, %d up to date", result.succeeded() - skipped.get(), skipped.get());
+    return result.failures.isEmpty();
+  }
+
+  /** Mirrors a source's path under the output directory, dropping its .txt extension (or adding .bin if it has none) */
+  static Path compileOutputFile(final Path inputDir, final Path outputDir, final Path inputFile) {
+    final String relative = inputDir.relativize(inputFile).toString();
+    return outputDir.resolve(relative.endsWith(".txt") ? relative.substring(0, relative.length() - 4) : relative + ".bin");
+  }
+
+  /** Keeps compiling sources under the input directory as they change */
+  private static boolean watch(final String[] args, final MetaManager metaManager, final Path cacheDir) throws IOException, CsvException, NoSuchVersionException, InterruptedException {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use");
+    options.addRequiredOption("i", "in", true, "The input directory");
+    options.addRequiredOption("o", "out", true, "The output directory");
+    options.addOption("g", "glob", true, "Only compile files whose path relative to the input directory matches this glob (defaults to **.txt)");
+    options.addOption("d", "debounce", true, "How long the input directory must be quiet before building, in milliseconds (defaults to 20)");
+
+    final CommandLine cmd;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Path inputDir = Paths.get(cmd.getOptionValue("in")).toAbsolutePath();
+    final Path outputDir = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+    final long debounce = Long.parseLong(cmd.getOptionValue("debounce", "20"));
+
+    if(!Files.isDirectory(inputDir)) {
+      LOGGER.error("Error: input directory does not exist");
+      return false;
+    }
+
+    final String version = cmd.getOptionValue("version", "snapshot");
+
+    LOGGER.info("Loading meta %s...", version);
+    final Meta meta = metaManager.loadMeta(version);
+    final BuildCache cache = new BuildCache(cacheDir.resolve("build"), version, meta);
+
+    new Watcher(meta, inputDir, outputDir, cmd.getOptionValue("glob", "**.txt"), cache, debounce).run();
+    return true;
+  }
+
+  /** Round-trips every file under the input directory in memory and reports any that don't reproduce the original bytes */
+  private static boolean verify(final String[] args, final MetaManager metaManager) throws IOException, CsvException, NoSuchVersionException {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use");
+    options.addRequiredOption("i", "in", true, "The input directory");
+    options.addOption("g", "glob", true, "Only verify files whose path relative to the input directory matches this glob");
+    options.addOption("t", "threads", true, "The number of worker threads (defaults to the number of processors)");
+
+    final CommandLine cmd;
+    final int threads;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+      threads = positiveInt(cmd, "threads", Runtime.getRuntime().availableProcessors());
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Path inputDir = Paths.get(cmd.getOptionValue("in")).toAbsolutePath();
+
+    if(!Files.isDirectory(inputDir)) {
+      LOGGER.error("Error: input directory does not exist");
+      return false;
+    }
+
+    final String version = cmd.getOptionValue("version", "snapshot");
+
+    LOGGER.info("Loading meta %s...", version);
+    final Meta meta = metaManager.loadMeta(version);
+
+    final List<Path> files = BatchRunner.collectFiles(inputDir, cmd.getOptionValue("glob", "**"));
+    LOGGER.info("Verifying %d files from %s using %d threads...", files.size(), inputDir, threads);
+
+    final Map<Path, RoundTrip> mismatches = new ConcurrentHashMap<>();
+    final AtomicLong bytes = new AtomicLong();
+    final BatchResult result = new BatchRunner(threads).run(files, inputFile -> {
+      final byte[] original = Files.readAllBytes(inputFile);
+      final RoundTrip roundTrip = RoundTrip.run(meta, original);
+      bytes.addAndGet(original.length);
+
+      if(!roundTrip.matches()) {
+        mismatches.put(inputFile, roundTrip);
+      }
+    });
+
+    for(final Map.Entry<Path, RoundTrip> mismatch : new TreeMap<>(mismatches).entrySet()) {
+      LOGGER.error("Mismatch: %s: %s", inputDir.relativize(mismatch.getKey()), mismatch.getValue());
+    }
+
+    logBatchResult("Round-tripped", result);
+    LOGGER.info("%d matched, %d mismatched, %.2f MB/sec", result.succeeded() - mismatches.size(), mismatches.size(), result.bytesPerSecond(bytes.get()) / 1_048_576.0d);
+    return result.failures.isEmpty() && mismatches.isEmpty();
+  }
+
+  /** Shards decompiling, compiling or round-tripping a corpus across worker processes */
+  private static boolean cluster(final String[] args, final MetaManager metaManager) throws IOException, CsvException, NoSuchVersionException, InterruptedException {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use");
+    options.addRequiredOption("i", "in", true, "The input directory");
+    options.addOption("o", "out", true, "The output directory (required unless round-tripping)");
+    options.addOption("m", "mode", true, "decompile, compile or roundtrip (defaults to decompile)");
+    options.addOption("g", "glob", true, "Only process files whose path relative to the input directory matches this glob (defaults to **.txt when compiling, otherwise **)");
+    options.addOption("w", "workers", true, "The number of worker processes to start (defaults to the number of processors, 0 to wait for workers started separately)");
+    options.addOption("u", "unit-size", true, "The number of files handed to a worker at a time (defaults to 8)");
+    options.addOption("r", "retries", true, "How many times a unit is retried after its worker fails (defaults to 2)");
+    options.addOption("p", "port", true, "The localhost port to listen on (defaults to a random free port)");
+    options.addOption("C", "no-comments", false, "Make translator not add any comments");
+    options.addOption("N", "no-names", false, "Remove friendly names from engine methods");
+
+    final CommandLine cmd;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Bench.Mode mode;
+    try {
+      mode = Bench.Mode.valueOf(cmd.getOptionValue("mode", "decompile").toUpperCase());
+    } catch(final IllegalArgumentException e) {
+      LOGGER.error("Error: unknown mode %s", cmd.getOptionValue("mode"));
+      return false;
+    }
+
+    if(mode != Bench.Mode.ROUNDTRIP && !cmd.hasOption("out")) {
+      LOGGER.error("Error: an output directory is required to %s", mode.name().toLowerCase());
+      return false;
+    }
+
+    final Path inputDir = Paths.get(cmd.getOptionValue("in")).toAbsolutePath();
+    final Path outputDir = cmd.hasOption("out") ? Paths.get(cmd.getOptionValue("out")).toAbsolutePath() : null;
+    final int workers = Integer.parseInt(cmd.getOptionValue("workers", Integer.toString(Runtime.getRuntime().availableProcessors())));
+    final int unitSize = Integer.parseInt(cmd.getOptionValue("unit-size", "8"));
+    final int retries = Integer.parseInt(cmd.getOptionValue("retries", "2"));
+
+    if(!Files.isDirectory(inputDir)) {
+      LOGGER.error("Error: input directory does not exist");
+      return false;
+    }
+
+    // Workers load the meta themselves, this fails fast on a bad version and makes sure it's cached before they all ask for it
+    final String version = cmd.getOptionValue("version", "snapshot");
+    LOGGER.info("Loading meta %s...", version);
+    metaManager.loadMeta(version);
+
+    final Coordinator.Job job = new Coordinator.Job(mode, version, inputDir, outputDir, cmd.hasOption("no-names"), cmd.hasOption("no-comments"));
+
+    final List<Path> files = BatchRunner.collectFiles(inputDir, cmd.getOptionValue("glob", mode == Bench.Mode.COMPILE ? "**.txt" : "**"));
+    final Coordinator coordinator = new Coordinator(job, files, Math.max(1, unitSize), Math.max(1, workers), retries);
+    final BatchResult result = coordinator.run(Integer.parseInt(cmd.getOptionValue("port", "0")), workers);
+
+    logBatchResult("Processed", result);
+    return result.failures.isEmpty();
+  }
+
+  /** Connects to a coordinator and processes the units it hands out */
+  private static boolean runWorker(final String[] args, final MetaManager metaManager) throws IOException {
+    final Options options = new Options();
+    options.addRequiredOption("p", "port", true, "The localhost port the coordinator is listening on");
+
+    final CommandLine cmd;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    new Worker(metaManager).run(Integer.parseInt(cmd.getOptionValue("port")));
+    return true;
+  }
+
+  /** Times decompiling, compiling or round-tripping a corpus and reports per-file latency percentiles and throughput */
+  private static boolean bench(final String[] args, final MetaManager metaManager) throws IOException, CsvException, NoSuchVersionException {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use");
+    options.addRequiredOption("i", "in", true, "The input directory");
+    options.addOption("m", "mode", true, "decompile, compile or roundtrip (defaults to roundtrip)");
+    options.addOption("g", "glob", true, "Only use files whose path relative to the input directory matches this glob (defaults to **.txt when compiling, otherwise **)");
+    options.addOption("t", "threads", true, "The number of worker threads (defaults to 1 so latencies aren't skewed by contention)");
+    options.addOption("w", "warmup", true, "The number of unmeasured passes over the corpus (defaults to 3)");
+    options.addOption("n", "iterations", true, "The number of measured passes over the corpus (defaults to 5)");
+
+    final CommandLine cmd;
+    final int threads;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+      threads = positiveInt(cmd, "threads", 1);
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Bench.Mode mode;
+    try {
+      mode = Bench.Mode.valueOf(cmd.getOptionValue("mode", "roundtrip").toUpperCase());
+    } catch(final IllegalArgumentException e) {
+      LOGGER.error("Error: unknown mode %s", cmd.getOptionValue("mode"));
+      return false;
+    }
+
+    final Path inputDir = Paths.get(cmd.getOptionValue("in")).toAbsolutePath();
+    final int warmup = Integer.parseInt(cmd.getOptionValue("warmup", "3"));
+    final int iterations = Integer.parseInt(cmd.getOptionValue("iterations", "5"));
+
+    if(!Files.isDirectory(inputDir)) {
+      LOGGER.error("Error: input directory does not exist");
+      return false;
+    }
+
+    final String version = cmd.getOptionValue("version", "snapshot");
+
+    LOGGER.info("Loading meta %s...", version);
+    final Meta meta = metaManager.loadMeta(version);
+
+    final List<Path> files = BatchRunner.collectFiles(inputDir, cmd.getOptionValue("glob", mode == Bench.Mode.COMPILE ? "**.txt" : "**"));
+    LOGGER.info("Benchmarking %s of %d files from %s, %d warmup and %d measured iterations using %d threads...", mode.name().toLowerCase(), files.size(), inputDir, warmup, iterations, threads);
+
+    final BenchResult result = new Bench(meta, mode, threads).run(files, warmup, iterations);
+
+    for(final BatchFailure failure : result.failures) {
+      LOGGER.error("Failed: %s", failure);
+    }
+
+    if(!result.failures.isEmpty()) {
+      return false;
+    }
+
+    LOGGER.info("Latency per file: p50 %.2fms, p95 %.2fms, p99 %.2fms, max %.2fms", result.percentileMillis(50), result.percentileMillis(95), result.percentileMillis(99), result.percentileMillis(100));
+    LOGGER.info("Throughput: %.1f files/sec, %.2f MB/sec over %.2fs", result.filesPerSecond(), result.bytesPerSecond() / 1_048_576.0d, result.seconds());
+    LOGGER.info("Peak heap: %.1f MB", result.peakHeapBytes / 1_048_576.0d);
+
+    if(result.mismatches != 0) {
+      LOGGER.warn("%d round trips didn't reproduce the original", result.mismatches);
+    }
+
+    return true;
+  }
+
+  /** Writes a corpus of synthetic scripts (binaries plus matching sources) and the meta they were generated against */
+  private static boolean generate(final String[] args, final Path cacheDir) throws IOException {
+    final Options options = new Options();
+    options.addRequiredOption("o", "out", true, "The output directory");
+    options.addOption("n", "count", true, "The number of scripts to generate (defaults to 1)");
+    options.addOption("s", "size", true, "The approximate size of each script in bytes (defaults to 16384)");
+    options.addOption("S", "seed", true, "The seed of the first script, each following script uses the next seed");
+    options.addOption("e", "entrypoints", true, "The number of entrypoints in each script (1-32, defaults to 16)");
+    options.addOption("d", "branch-density", true, "The chance that an op branches (defaults to 0.15)");
+    options.addOption("c", "call-ratio", true, "The chance that an op is an engine call (defaults to 0.25)");
+
+    final CommandLine cmd;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Path outputDir = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+    final int count = Integer.parseInt(cmd.getOptionValue("count", "1"));
+    final GeneratorOptions defaults = new GeneratorOptions();
+    final long seed = Long.decode(cmd.getOptionValue("seed", Long.toString(defaults.seed)));
+
+    final GeneratorOptions generatorOptions = new GeneratorOptions()
+      .targetBytes(Integer.parseInt(cmd.getOptionValue("size", Integer.toString(defaults.targetBytes))))
+      .entrypoints(Integer.parseInt(cmd.getOptionValue("entrypoints", Integer.toString(defaults.entrypoints))))
+      .branchDensity(Double.parseDouble(cmd.getOptionValue("branch-density", Double.toString(defaults.branchDensity))))
+      .callRatio(Double.parseDouble(cmd.getOptionValue("call-ratio", Double.toString(defaults.callRatio))));
+
+    Files.createDirectories(outputDir);
+    SyntheticMeta.write(cacheDir.resolve(SyntheticMeta.VERSION));
+
+    long bytes = 0;
+    for(int i = 0; i < count; i++) {
+      final GeneratedScript script = ScriptGenerator.generate(generatorOptions.seed(seed + i));
+      final String name = "synthetic_%04d".formatted(i);
+
+      Files.write(outputDir.resolve(name + ".bin"), script.bytes(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      Files.writeString(outputDir.resolve(name + ".txt"), script.source, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      bytes += script.words.length * 0x4L;
+    }
+
+    LOGGER.info("Generated %d scripts (%d bytes) in %s, use meta version %s to process them", count, bytes, outputDir, SyntheticMeta.VERSION);
+    return true;
+  }
+
+  /**
+   * Mutates seed scripts looking for inputs that are slow to disassemble or lex, and saves the slowest as fixtures.
+   * With --check, replays saved fixtures instead and fails if any got slower than its floor.
+   */
+  private static boolean fuzz(final String[] args, final MetaManager metaManager) throws IOException, CsvException, NoSuchVersionException {
+    final Options options = new Options();
+    options.addOption("v", "version", true, "The meta version to use (defaults to the synthetic meta, which needs no network)");
+    options.addOption("i", "in", true, "A directory of seed scripts, .txt sources are lexed and everything else is disassembled");
+    options.addOption("s", "synthetic", true, "The number of generated seed scripts (defaults to 8)");
+    options.addOption("m", "mode", true, "disassemble, lex or both (defaults to both)");
+    options.addOption("n", "iterations", true, "The number of mutated inputs to try per mode (defaults to 2000)");
+    options.addOption("T", "time", true, "Stop each mode after this many seconds");
+    options.addOption("S", "seed", true, "The random seed (defaults to 0)");
+    options.addOption("t", "timeout", true, "Give up on a single disassembly after this many milliseconds (defaults to 5000)");
+    options.addOption("o", "out", true, "The directory to save the slowest inputs to as fixtures");
+    options.addOption("k", "keep", true, "The number of slowest inputs to save per mode (defaults to 10)");
+    options.addOption("l", "slack", true, "How many times slower than measured a fixture may run before it fails --check (defaults to 4)");
+    options.addOption("c", "check", true, "Replay the fixtures in this directory instead of fuzzing, failing if any fell below its floor or hit the deadline");
+
+    final CommandLine cmd;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final String version = cmd.getOptionValue("version", SyntheticMeta.VERSION);
+    final Meta meta = cmd.hasOption("version") ? metaManager.loadMeta(version) : SyntheticMeta.create();
+    final Duration timeout = Duration.ofMillis(Long.parseLong(cmd.getOptionValue("timeout", "5000")));
+
+    if(cmd.hasOption("check")) {
+      final Path fixtureDir = Paths.get(cmd.getOptionValue("check")).toAbsolutePath();
+      final List<String> failures = Fixtures.check(fixtureDir, meta, Duration.ofSeconds(5), timeout);
+
+      for(final String failure : failures) {
+        LOGGER.error("Too slow: %s", failure);
       }
+
+      LOGGER.info("%d fixtures too slow", failures.size());
+      return failures.isEmpty();
+    }
+
+    final String mode = cmd.getOptionValue("mode", "both").toLowerCase();
+    if(!"disassemble".equals(mode) && !"lex".equals(mode) && !"both".equals(mode)) {
+      LOGGER.error("Error: unknown mode %s", mode);
+      return false;
     }
+
+    final int iterations = Integer.parseInt(cmd.getOptionValue("iterations", "2000"));
+    final Duration timeLimit = cmd.hasOption("time") ? Duration.ofSeconds(Long.parseLong(cmd.getOptionValue("time"))) : null;
+    final long seed = Long.decode(cmd.getOptionValue("seed", "0"));
+    final int keep = Integer.parseInt(cmd.getOptionValue("keep", "10"));
+    final double slack = Double.parseDouble(cmd.getOptionValue("slack", "4"));
+
+    final List<byte[]> binaries = new ArrayList<>();
+    final List<byte[]> sources = new ArrayList<>();
+
+    if(cmd.hasOption("in")) {
+      for(final Path file : BatchRunner.collectFiles(Paths.get(cmd.getOptionValue("in")).toAbsolutePath(), "**")) {
+        (file.toString().endsWith(".txt") ? sources : binaries).add(Files.readAllBytes(file));
+      }
+    }
+
+    final int synthetic = Integer.parseInt(cmd.getOptionValue("synthetic", "8"));
+    for(int i = 0; i < synthetic; i++) {
+      // Vary size and shape so the population doesn't start out all alike
+      final GeneratedScript script = ScriptGenerator.generate(new GeneratorOptions().seed(seed + i).targetBytes(4096 << i % 4).branchDensity(i % 2 == 0 ? 0.15d : 0.5d));
+      binaries.add(script.bytes());
+      sources.add(script.source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    final List<FuzzCase> slowest = new ArrayList<>();
+
+    for(final Fuzzer.Target target : Fuzzer.Target.values()) {
+      final String name = target.name().toLowerCase();
+
+      if(!"both".equals(mode) && !mode.equals(name)) {
+        continue;
+      }
+
+      LOGGER.info("Fuzzing %s with %d seeds...", name, target == Fuzzer.Target.DISASSEMBLE ? binaries.size() : sources.size());
+      final List<FuzzCase> cases = new Fuzzer(meta, target, seed, timeout).run(target == Fuzzer.Target.DISASSEMBLE ? binaries : sources, iterations, timeLimit, 3);
+
+      for(final FuzzCase fuzzCase : cases.subList(0, Math.min(keep, cases.size()))) {
+        LOGGER.info("%s: %d bytes, %.1f ns/byte, %.2f MB/sec, %.1f bytes allocated/byte%s%s", name, fuzzCase.input.length, fuzzCase.nanosPerByte(), fuzzCase.bytesPerSecond() / 1_048_576.0d, fuzzCase.allocatedPerByte(), fuzzCase.capped ? " (hit the deadline)" : "", fuzzCase.failure != null ? " (" + fuzzCase.failure + ')' : "");
+        slowest.add(fuzzCase);
+      }
+    }
+
+    if(cmd.hasOption("out")) {
+      final Path outputDir = Paths.get(cmd.getOptionValue("out")).toAbsolutePath();
+      final int saved = Fixtures.write(outputDir, slowest, slack, meta, version, timeout);
+      LOGGER.info("Saved %d fixtures to %s, replay them with fuzz --check", saved, outputDir);
+    }
+
+    return true;
+  }
+
+  /** Serves requests from a long-running process so meta loading and JIT warmup are only paid once */
+  private static boolean runDaemon(final String[] args, final MetaManager metaManager) throws IOException {
+    final Options options = new Options();
+    options.addOption("p", "port", true, "The localhost port to listen on (defaults to a random free port)");
+    options.addOption("s", "stdio", false, "Read requests from stdin and write responses to stdout instead of listening on a socket");
+    options.addOption("k", "token-file", true, "Where to write the token socket clients have to authenticate with (defaults to daemon.token)");
+
+    final CommandLine cmd;
+    final CommandLineParser parser = new DefaultParser();
+    final HelpFormatter helper = new HelpFormatter();
+
+    try {
+      cmd = parser.parse(options, args);
+    } catch(final ParseException e) {
+      LOGGER.error(e.getMessage());
+      helper.printHelp("Usage:", options);
+      return false;
+    }
+
+    final Daemon daemon = new Daemon(metaManager);
+
+    if(cmd.hasOption("stdio")) {
+      // Replies own stdout, so logs and anything else that prints go to stderr instead
+      final PrintStream replies = System.out;
+      System.setProperty(CustomConfigurationFactory.LOG_TO_STDERR, "true");
+      LoggerContext.getContext(false).reconfigure();
+      System.setOut(System.err);
+
+      daemon.serve(System.in, replies);
+    } else {
+      daemon.listen(Integer.parseInt(cmd.getOptionValue("port", "0")), Paths.get(cmd.getOptionValue("token-file", "daemon.token")));
+    }
+
+    return true;
+  }
+
+  private static int parseSliceOption(final String option, final String value, final String prefix, final int radix) throws ParseException {
+    final String number = value.strip();
+
+    try {
+      return Integer.parseInt(number.startsWith(prefix) ? number.substring(prefix.length()) : number, radix);
+    } catch(final NumberFormatException e) {
+      throw new ParseException("--%s must be %s, got %s".formatted(option, radix == 16 ? "a hex address" : "an entrypoint number or ENTRYPOINT_n", value));
+    }
+  }
+
+  /** Reads an option that must be a positive whole number, so a bad value is a usage error rather than a stack trace */
+  private static int positiveInt(final CommandLine cmd, final String option, final int defaultValue) throws ParseException {
+    if(!cmd.hasOption(option)) {
+      return defaultValue;
+    }
+
+    final int value;
+    try {
+      value = Integer.parseInt(cmd.getOptionValue(option).strip());
+    } catch(final NumberFormatException e) {
+      throw new ParseException("--%s must be a whole number, got %s".formatted(option, cmd.getOptionValue(option)));
+    }
+
+    if(value < 1) {
+      throw new ParseException("--%s must be at least 1, got %d".formatted(option, value));
+    }
+
+    return value;
+  }
+
+  private static void logBatchResult(final String action, final BatchResult result) {
+    for(final BatchFailure failure : result.failures) {
+      LOGGER.error("Failed: %s", failure);
+    }
+
+    LOGGER.info("%s %d/%d files in %.2fs (%.1f files/sec), %d failed", action, result.succeeded(), result.files, result.seconds(), result.filesPerSecond(), result.failures.size());
   }
 
   private static void generateDiff(final String[] args) throws IOException {
@@ -282,7 +1163,7 @@ public final class Shell {
     Files.writeString(outputFile, output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
   }
 
-  private static byte[] intsToBytes(final int[] ints) {
+  static byte[] intsToBytes(final int[] ints) {
     final ByteBuffer buffer = ByteBuffer.allocate(ints.length * 0x4).order(ByteOrder.LITTLE_ENDIAN);
     buffer.asIntBuffer().put(ints);
     return buffer.array();
@@ -1,17 +1,26 @@
 package org.legendofdragoon.scripting;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 public class State {
-  private final byte[] script;
+  /** Little-endian view of the script, offsets are relative to the start of the script */
+  private final ByteBuffer script;
 
   private int headerOffset;
   private int currentOffset;
 
   public State(final byte[] script) {
-    this.script = script;
+    this(ByteBuffer.wrap(script));
+  }
+
+  /** Reads the buffer's remaining bytes in place, e.g. a memory-mapped file. The buffer's position is not changed. */
+  public State(final ByteBuffer script) {
+    this.script = script.slice().order(ByteOrder.LITTLE_ENDIAN);
   }
 
   public int length() {
-    return this.script.length;
+    return this.script.limit();
   }
 
   public void step() {
@@ -39,23 +48,33 @@ public class State {
   }
 
   public int wordAt(final int index) {
-    return MathHelper.get(this.script, index, 4);
+    return this.script.getInt(index);
+  }
+
+  /** Copies {@code count} words starting at word {@code index} into {@code dest} */
+  public void readWords(final int index, final int[] dest, final int count) {
+    this.script.asIntBuffer().get(index, dest, 0, count);
+  }
+
+  /** @return a view of these bytes of the script, sharing its memory */
+  public ByteBuffer slice(final int offset, final int length) {
+    return this.script.slice(offset, length);
   }
 
   public int paramType() {
-    return this.script[this.currentOffset + 3] & 0xff;
+    return this.script.get(this.currentOffset + 3) & 0xff;
   }
 
   public int param0() {
-    return this.script[this.currentOffset] & 0xff;
+    return this.script.get(this.currentOffset) & 0xff;
   }
 
   public int param1() {
-    return this.script[this.currentOffset + 1] & 0xff;
+    return this.script.get(this.currentOffset + 1) & 0xff;
   }
 
   public int param2() {
-    return this.script[this.currentOffset + 2] & 0xff;
+    return this.script.get(this.currentOffset + 2) & 0xff;
   }
 
   public State advance() {
@@ -73,6 +92,6 @@ public class State {
   }
 
   public boolean hasMore() {
-    return this.currentOffset / 4 < this.script.length / 4;
+    return this.currentOffset / 4 < this.script.limit() / 4;
   }
 }
@@ -1,11 +1,36 @@
 package org.legendofdragoon.scripting;
 
-public class StringInfo {
+/**
+ * Ordered by start address, then by length with unknown (-1) last. Overlapping strings are filled in this order and the
+ * last one to claim a word keeps it, so the order has to be the same on every run, serial or parallel.
+ */
+public class StringInfo implements Comparable<StringInfo> {
   public final int start;
-  public int maxLength;
+  public final int maxLength;
 
   public StringInfo(final int start, final int maxLength) {
     this.start = start;
     this.maxLength = maxLength;
   }
+
+  @Override
+  public int compareTo(final StringInfo other) {
+    final int byStart = Integer.compare(this.start, other.start);
+
+    if(byStart != 0) {
+      return byStart;
+    }
+
+    return Integer.compareUnsigned(this.maxLength, other.maxLength); // -1 sorts as the longest
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof final StringInfo other && this.start == other.start && this.maxLength == other.maxLength;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.start + this.maxLength;
+  }
 }
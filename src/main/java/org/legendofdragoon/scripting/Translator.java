@@ -3,7 +3,9 @@ package org.legendofdragoon.scripting;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.tokens.CompactScript;
 import org.legendofdragoon.scripting.tokens.Data;
+import org.legendofdragoon.scripting.tokens.DataRun;
 import org.legendofdragoon.scripting.tokens.Entry;
 import org.legendofdragoon.scripting.tokens.Entrypoint;
 import org.legendofdragoon.scripting.tokens.LodString;
@@ -13,7 +15,6 @@ import org.legendofdragoon.scripting.tokens.PointerTable;
 import org.legendofdragoon.scripting.tokens.Script;
 
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,13 +25,18 @@ public class Translator {
 
   private final Map<String, String> reindexedLabels = new HashMap<>();
 
+  public String translate(final CompactScript script, final Meta meta, final boolean stripNames, final boolean stripComments) {
+    return this.translate(script.toScript(), meta, stripNames, stripComments);
+  }
+
   public String translate(final Script script, final Meta meta, final boolean stripNames, final boolean stripComments) {
     final StringBuilder builder = new StringBuilder();
+    this.reindexedLabels.clear();
 
     // Sort LABEL_ labels in the order of their destinations
-    final List<String> sortedLabels = script.labels.entrySet().stream()
-      .sorted(Comparator.comparingInt(Map.Entry::getKey))
-      .flatMap(e -> e.getValue().stream())
+    final List<String> sortedLabels = Arrays.stream(script.labels.addresses())
+      .mapToObj(script.labels::get)
+      .flatMap(List::stream)
       .filter(label -> label.startsWith("LABEL_"))
       .toList();
 
@@ -40,30 +46,32 @@ public class Translator {
 
     for(int entryIndex = 0; entryIndex < script.entries.length; entryIndex++) {
       final Entry entry = script.entries[entryIndex];
-      if(!stripComments) {
-        if(script.subs.contains(entry.address)) {
-          builder.append("\n; SUBROUTINE\n");
-        }
 
-        if(script.subTables.contains(entry.address)) {
-          builder.append("\n; SUBROUTINE TABLE\n");
-        }
-
-        if(script.reentries.contains(entry.address)) {
-          builder.append("\n; FORK RE-ENTRY\n");
-        }
+      // Only a slice from Disassembler#disassembleFrom leaves words unclaimed, and it only wants what it reached
+      if(entry == null) {
+        continue;
       }
 
-      if(script.labels.containsKey(entry.address)) {
-        for(final String label : script.labels.get(entry.address)) {
-          builder.append(this.getReindexedLabel(label)).append(":\n");
-        }
-      }
+      // A string can spill into the first words of a data run, so a run may be entered part way through
+      final int address = entry instanceof DataRun ? entryIndex * 0x4 : entry.address;
+      this.appendComments(builder, script, address, stripComments);
 
       if(entry instanceof final Entrypoint entrypoint) {
         builder.append("entrypoint :").append(entrypoint.destination).append('\n');
       } else if(entry instanceof final Data data) {
         builder/*.append(Integer.toHexString(data.address)).append(": ")*/.append("data 0x%x".formatted(data.value)).append('\n');
+      } else if(entry instanceof final DataRun run) {
+        final int start = (address - run.address) / 0x4;
+
+        for(int i = start; i < run.length(); i++) {
+          if(i != start) {
+            this.appendComments(builder, script, run.address + i * 0x4, stripComments);
+          }
+
+          builder.append("data 0x").append(Integer.toHexString(run.word(i))).append('\n');
+        }
+
+        entryIndex += run.length() - start - 1;
       } else if(entry instanceof final PointerTable rel) {
         if(rel.labels.length == 0) {
           throw new RuntimeException("Empty jump table %x".formatted(rel.address));
@@ -76,26 +84,23 @@ public class Translator {
 
         entryIndex--;
       } else if(entry instanceof final LodString string) {
-        final List<Map.Entry<Integer, List<String>>> overlappingLabels = script.labels.entrySet().stream()
-          .filter(e -> e.getKey() > string.address && e.getKey() < string.address + (string.chars.length + 2) / 0x2 * 0x4) // +1 for terminator, +1 to round up
-          .sorted(Comparator.comparingInt(Map.Entry::getKey))
-          .toList();
+        final int[] overlappingLabels = script.labels.addresses(string.address + 1, string.address + (string.chars.length + 2) / 0x2 * 0x4); // +1 for terminator, +1 to round up
 
         builder.append("data str[");
 
-        if(overlappingLabels.isEmpty()) {
+        if(overlappingLabels.length == 0) {
           builder.append(string);
         } else {
           // An unholy algorithm to split strings based on intersecting labels, since that's apparently a thing they did
 
           int currentIndex = 0;
-          for(final Map.Entry<Integer, List<String>> overlappingLabel : overlappingLabels) {
-            final int nextLabelIndex = (overlappingLabel.getKey() - string.address) / 0x2;
+          for(final int overlappingLabel : overlappingLabels) {
+            final int nextLabelIndex = (overlappingLabel - string.address) / 0x2;
 
             builder.append(new LodString(0, Arrays.copyOfRange(string.chars, currentIndex, nextLabelIndex))).append("<noterm>]\n");
 
-            for(final String label : overlappingLabel.getValue()) {
-              builder.append(label).append(":\n");
+            for(final String label : script.labels.get(overlappingLabel)) {
+              builder.append(this.getReindexedLabel(label)).append(":\n");
             }
 
             builder.append("data str[");
@@ -164,6 +169,29 @@ public class Translator {
     return builder.toString();
   }
 
+  /** Appends the comments and labels that go before the entry at this address */
+  private void appendComments(final StringBuilder builder, final Script script, final int address, final boolean stripComments) {
+    if(!stripComments) {
+      if(script.subs.contains(address)) {
+        builder.append("\n; SUBROUTINE\n");
+      }
+
+      if(script.subTables.contains(address)) {
+        builder.append("\n; SUBROUTINE TABLE\n");
+      }
+
+      if(script.reentries.contains(address)) {
+        builder.append("\n; FORK RE-ENTRY\n");
+      }
+    }
+
+    if(script.labels.containsKey(address)) {
+      for(final String label : script.labels.get(address)) {
+        builder.append(this.getReindexedLabel(label)).append(":\n");
+      }
+    }
+  }
+
   private String getReindexedLabel(final String label) {
     return this.reindexedLabels.getOrDefault(label, label);
   }
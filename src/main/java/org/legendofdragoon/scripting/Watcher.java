@@ -0,0 +1,149 @@
+package org.legendofdragoon.scripting;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.legendofdragoon.scripting.batch.BatchRunner;
+import org.legendofdragoon.scripting.batch.BuildCache;
+import org.legendofdragoon.scripting.meta.Meta;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Recompiles sources as they change. The meta, lexer and compiler stay loaded between builds, and events are collected
+ * until the tree has been quiet for the debounce period so that an editor's save (often several events) only causes
+ * one build.
+ */
+public class Watcher {
+  private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+  private final Path inputDir;
+  private final Path outputDir;
+  private final PathMatcher matcher;
+  private final BuildCache cache;
+  private final long debounceMillis;
+  private final Lexer lexer;
+  private final Compiler compiler = new Compiler();
+  private final Map<WatchKey, Path> dirs = new HashMap<>();
+
+  public Watcher(final Meta meta, final Path inputDir, final Path outputDir, final String glob, final BuildCache cache, final long debounceMillis) {
+    this.inputDir = inputDir;
+    this.outputDir = outputDir;
+    this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    this.cache = cache;
+    this.debounceMillis = debounceMillis;
+    this.lexer = new Lexer(meta);
+  }
+
+  /** Brings every output up to date, then rebuilds changed sources until interrupted */
+  public void run() throws IOException, InterruptedException {
+    try(final WatchService watcher = FileSystems.getDefault().newWatchService()) {
+      this.registerTree(watcher, this.inputDir);
+
+      final Set<Path> initial = new LinkedHashSet<>(BatchRunner.collectFiles(this.inputDir, "**"));
+      this.build(initial);
+
+      LOGGER.info("Watching %s for changes...", this.inputDir);
+
+      final Set<Path> changed = new LinkedHashSet<>();
+
+      while(!Thread.currentThread().isInterrupted()) {
+        // Block until something happens, then keep collecting until it goes quiet
+        final WatchKey key = changed.isEmpty() ? watcher.take() : watcher.poll(this.debounceMillis, TimeUnit.MILLISECONDS);
+
+        if(key == null) {
+          this.build(changed);
+          changed.clear();
+          continue;
+        }
+
+        this.collect(watcher, key, changed);
+      }
+    } catch(final ClosedWatchServiceException e) {
+      LOGGER.info("Stopped watching %s", this.inputDir);
+    }
+  }
+
+  private void collect(final WatchService watcher, final WatchKey key, final Set<Path> changed) throws IOException {
+    final Path dir = this.dirs.get(key);
+
+    for(final WatchEvent<?> event : key.pollEvents()) {
+      if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        LOGGER.warn("Missed file system events, rescanning %s", this.inputDir);
+        changed.addAll(BatchRunner.collectFiles(this.inputDir, "**"));
+        continue;
+      }
+
+      final Path file = dir.resolve((Path)event.context());
+
+      if(Files.isDirectory(file)) {
+        if(event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+          // Files may have landed in the new directory before it was registered
+          this.registerTree(watcher, file);
+          changed.addAll(BatchRunner.collectFiles(file, "**"));
+        }
+      } else if(event.kind() != StandardWatchEventKinds.ENTRY_DELETE) {
+        changed.add(file);
+      }
+    }
+
+    if(!key.reset()) {
+      this.dirs.remove(key);
+    }
+  }
+
+  private void build(final Set<Path> files) {
+    for(final Path file : files) {
+      if(!Files.isRegularFile(file) || !this.matcher.matches(this.inputDir.relativize(file))) {
+        continue;
+      }
+
+      final Path outputFile = Shell.compileOutputFile(this.inputDir, this.outputDir, file);
+      final long start = System.nanoTime();
+
+      try {
+        final byte[] source = Files.readAllBytes(file);
+        final String key = this.cache.key(source);
+
+        // Editors often touch or rewrite files without changing them
+        if(this.cache.isUpToDate(outputFile, key)) {
+          continue;
+        }
+
+        final int[] compiled = this.compiler.compile(this.lexer.lex(new String(source, StandardCharsets.UTF_8)));
+
+        Files.createDirectories(outputFile.getParent());
+        Files.write(outputFile, Shell.intsToBytes(compiled), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.cache.store(outputFile, key);
+
+        LOGGER.info("Compiled %s in %.1fms", this.inputDir.relativize(file), (System.nanoTime() - start) / 1_000_000.0d);
+      } catch(final Exception | StackOverflowError e) {
+        LOGGER.error("Failed to compile %s: %s", this.inputDir.relativize(file), e);
+      }
+    }
+  }
+
+  private void registerTree(final WatchService watcher, final Path root) throws IOException {
+    try(final Stream<Path> stream = Files.walk(root)) {
+      for(final Path dir : stream.filter(Files::isDirectory).toList()) {
+        this.dirs.put(dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), dir);
+      }
+    }
+  }
+}
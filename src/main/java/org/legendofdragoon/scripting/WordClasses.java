@@ -0,0 +1,158 @@
+package org.legendofdragoon.scripting;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Classifies every word of a script up front as a possible op header and param, one bit per word, so the
+ * disassembler's heuristics test a bit instead of decoding the same word again. The header bitmaps only mean anything
+ * where the opcode bit is set.
+ *
+ * <p>Classifies one word at a time by default. When the jdk.incubator.vector module is present (run with
+ * {@code --add-modules jdk.incubator.vector}) and the vector source set was built into the jar, uses
+ * {@code VectorWordClassifier} instead. Both give the same bits.</p>
+ */
+public final class WordClasses {
+  /** {@code VectorWordClassifier.classify}, or null to classify one word at a time */
+  private static final MethodHandle VECTORIZED = findVectorClassifier();
+
+  /** The low byte is a known opcode */
+  final long[] opcodes;
+  /** The param count byte is what the opcode takes (any count for CALL, which depends on the method) */
+  final long[] paramCounts;
+  /** The header param is in range for CALL, or absent for ops without one */
+  final long[] headerParams;
+  /** The top byte is a param type other than an immediate */
+  final long[] paramTypes;
+  /** All three header bitmaps, i.e. {@link DecodeTable#isValidHeader} */
+  private final long[] headers;
+  /** Set for {@link #lazy}, which classifies words a bitmap word at a time as they're first asked about */
+  private final State state;
+  /** One bit per bitmap word already classified, null if everything was classified up front */
+  private final long[] classified;
+
+  WordClasses(final int length) {
+    this(length, null);
+  }
+
+  private WordClasses(final int length, final State state) {
+    this.opcodes = new long[(length + 63) >>> 6];
+    this.paramCounts = new long[this.opcodes.length];
+    this.headerParams = new long[this.opcodes.length];
+    this.paramTypes = new long[this.opcodes.length];
+    this.headers = new long[this.opcodes.length];
+    this.state = state;
+    this.classified = state != null ? new long[(this.opcodes.length + 63) >>> 6] : null;
+  }
+
+  public static WordClasses classify(final State state) {
+    if(VECTORIZED == null) {
+      return classifyScalar(state);
+    }
+
+    try {
+      return (WordClasses)VECTORIZED.invokeExact(state);
+    } catch(final RuntimeException | Error e) {
+      throw e;
+    } catch(final Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static MethodHandle findVectorClassifier() {
+    if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return null;
+    }
+
+    try {
+      final Class<?> classifier = Class.forName("org.legendofdragoon.scripting.VectorWordClassifier");
+      return MethodHandles.lookup().findStatic(classifier, "classify", MethodType.methodType(WordClasses.class, State.class));
+    } catch(final ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /** Classifies nothing up front, for disassembling a slice that only reads part of the script */
+  public static WordClasses lazy(final State state) {
+    return new WordClasses(state.length() / 4, state);
+  }
+
+  public static WordClasses classifyScalar(final State state) {
+    final int length = state.length() / 4;
+    final WordClasses classes = new WordClasses(length);
+
+    for(int i = 0; i < length; i++) {
+      classes.classifyWord(i, state.wordAt(i * 0x4));
+    }
+
+    return classes.finish();
+  }
+
+  public boolean isValidOpcode(final int index) {
+    this.classifyLazily(index);
+    return isSet(this.opcodes, index);
+  }
+
+  /** Same as {@link DecodeTable#isValidHeader} on the word at this index */
+  public boolean isValidHeader(final int index) {
+    this.classifyLazily(index);
+    return isSet(this.headers, index);
+  }
+
+  public boolean isPlausibleParamType(final int index) {
+    this.classifyLazily(index);
+    return isSet(this.paramTypes, index);
+  }
+
+  private void classifyLazily(final int index) {
+    final int block = index >>> 6;
+
+    if(this.classified == null || isSet(this.classified, block)) {
+      return;
+    }
+
+    final int end = Math.min(this.state.length() / 4, (block + 1) << 6);
+    for(int i = block << 6; i < end; i++) {
+      this.classifyWord(i, this.state.wordAt(i * 0x4));
+    }
+
+    this.headers[block] = this.opcodes[block] & this.paramCounts[block] & this.headerParams[block];
+    this.classified[block >>> 6] |= 1L << block;
+  }
+
+  /** Scalar classification of a single word, also used for whatever doesn't fill a whole vector */
+  void classifyWord(final int index, final int word) {
+    final int info = DecodeTable.OP_INFO[word & 0xff];
+    final int upper = word >>> 16;
+    final long bit = 1L << index;
+
+    if((info & DecodeTable.OP_VALID) != 0) {
+      this.opcodes[index >>> 6] |= bit;
+    }
+
+    if((info & DecodeTable.OP_CALL) != 0 || (word >>> 8 & 0xff) == (info >>> 8 & 0xff)) {
+      this.paramCounts[index >>> 6] |= bit;
+    }
+
+    if((info & DecodeTable.OP_CALL) != 0 ? upper < 1024 : (info & DecodeTable.OP_HEADER_PARAM) != 0 || upper == 0) {
+      this.headerParams[index >>> 6] |= bit;
+    }
+
+    if(DecodeTable.NON_IMMEDIATE_PARAMS[word >>> 24] != 0) {
+      this.paramTypes[index >>> 6] |= bit;
+    }
+  }
+
+  WordClasses finish() {
+    for(int i = 0; i < this.headers.length; i++) {
+      this.headers[i] = this.opcodes[i] & this.paramCounts[i] & this.headerParams[i];
+    }
+
+    return this;
+  }
+
+  private static boolean isSet(final long[] bits, final int index) {
+    return (bits[index >>> 6] & 1L << index) != 0;
+  }
+}
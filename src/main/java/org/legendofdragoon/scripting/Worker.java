@@ -0,0 +1,140 @@
+package org.legendofdragoon.scripting;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.legendofdragoon.scripting.batch.RoundTrip;
+import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.meta.MetaManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Processes units handed out by a {@link Coordinator}, keeping the meta and pipeline stages loaded between units */
+public class Worker {
+  private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+  private final MetaManager metaManager;
+
+  private Coordinator.Job job;
+  private Meta meta;
+  private Disassembler disassembler;
+  private Translator translator;
+  private Lexer lexer;
+  private Compiler compiler;
+
+  public Worker(final MetaManager metaManager) {
+    this.metaManager = metaManager;
+  }
+
+  /** Works until the coordinator on this loopback port says to stop */
+  public void run(final int port) throws IOException {
+    try(final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      final Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+      this.job = Coordinator.Job.decode(Coordinator.readFields(reader));
+      LOGGER.info("Worker connected to port %d, %s %s", port, this.job.mode.name().toLowerCase(), this.job.inputDir);
+
+      while(true) {
+        Coordinator.send(writer, Coordinator.READY);
+
+        final String[] message = Coordinator.readFields(reader);
+
+        if(Coordinator.STOP.equals(message[0])) {
+          break;
+        }
+
+        if(!Coordinator.UNIT.equals(message[0])) {
+          throw new IOException("Unexpected message " + message[0]);
+        }
+
+        Coordinator.requireFields(message, 2);
+
+        this.processUnit(writer, message);
+      }
+    }
+  }
+
+  private void processUnit(final Writer writer, final String[] message) throws IOException {
+    final String id = message[1];
+
+    try {
+      this.loadMeta();
+    } catch(final Exception e) {
+      Coordinator.send(writer, String.join("\t", Coordinator.ERROR, id, sanitise(e.toString())));
+      return;
+    }
+
+    for(int i = 2; i < message.length; i++) {
+      try {
+        this.processFile(message[i]);
+      } catch(final Exception | StackOverflowError e) {
+        Coordinator.send(writer, String.join("\t", Coordinator.FAIL, message[i], sanitise(e.toString())));
+      }
+    }
+
+    Coordinator.send(writer, String.join("\t", Coordinator.DONE, id));
+  }
+
+  /** Loads the meta and pipeline stages on the first unit so a bad version is reported (and retried) like any other unit failure */
+  private void loadMeta() throws Exception {
+    if(this.meta == null) {
+      this.meta = this.metaManager.loadMeta(this.job.version);
+      this.disassembler = new Disassembler(this.meta);
+      this.translator = new Translator();
+      this.lexer = new Lexer(this.meta);
+      this.compiler = new Compiler();
+    }
+  }
+
+  private void processFile(final String relative) throws IOException {
+    final Path inputFile = this.job.inputDir.resolve(relative);
+
+    switch(this.job.mode) {
+      case DECOMPILE -> {
+        final ByteBuffer input = Shell.open(inputFile);
+        final String source;
+        try {
+          source = this.translator.translate(this.disassembler.disassemble(input, new int[0]), this.meta, this.job.stripNames, this.job.stripComments);
+        } finally {
+          Shell.release(input);
+        }
+
+        final Path outputFile = this.job.outputDir.resolve(relative + ".txt");
+
+        Files.createDirectories(outputFile.getParent());
+        Files.writeString(outputFile, source, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      }
+
+      case COMPILE -> {
+        final int[] compiled = this.compiler.compile(this.lexer.lex(Files.readString(inputFile)));
+        final Path outputFile = Shell.compileOutputFile(this.job.inputDir, this.job.outputDir, inputFile);
+
+        Files.createDirectories(outputFile.getParent());
+        Files.write(outputFile, Shell.intsToBytes(compiled), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      }
+
+      case ROUNDTRIP -> {
+        final RoundTrip roundTrip = RoundTrip.run(this.meta, Files.readAllBytes(inputFile));
+
+        if(!roundTrip.matches()) {
+          throw new RuntimeException("Round trip mismatch, " + roundTrip);
+        }
+      }
+    }
+  }
+
+  private static String sanitise(final String message) {
+    return message.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+  }
+}
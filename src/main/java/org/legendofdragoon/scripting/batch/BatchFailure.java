@@ -0,0 +1,18 @@
+package org.legendofdragoon.scripting.batch;
+
+import java.nio.file.Path;
+
+public class BatchFailure {
+  public final Path file;
+  public final Throwable error;
+
+  public BatchFailure(final Path file, final Throwable error) {
+    this.file = file;
+    this.error = error;
+  }
+
+  @Override
+  public String toString() {
+    return this.file + ": " + this.error;
+  }
+}
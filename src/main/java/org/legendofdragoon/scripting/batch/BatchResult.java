@@ -0,0 +1,32 @@
+package org.legendofdragoon.scripting.batch;
+
+import java.util.List;
+
+public class BatchResult {
+  public final int files;
+  public final List<BatchFailure> failures;
+  public final long elapsedNanos;
+
+  public BatchResult(final int files, final List<BatchFailure> failures, final long elapsedNanos) {
+    this.files = files;
+    this.failures = failures;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public int succeeded() {
+    return this.files - this.failures.size();
+  }
+
+  public double seconds() {
+    return this.elapsedNanos / 1_000_000_000.0d;
+  }
+
+  public double filesPerSecond() {
+    return this.elapsedNanos == 0 ? 0.0d : this.files / this.seconds();
+  }
+
+  /** @param bytes The number of bytes processed during the run */
+  public double bytesPerSecond(final long bytes) {
+    return this.elapsedNanos == 0 ? 0.0d : bytes / this.seconds();
+  }
+}
@@ -0,0 +1,72 @@
+package org.legendofdragoon.scripting.batch;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/** Runs one task per file over a fork-join pool, collecting failures instead of aborting the run. Callers log the failures. */
+public class BatchRunner {
+  private final int threads;
+
+  public BatchRunner(final int threads) {
+    if(threads < 1) {
+      throw new IllegalArgumentException("Thread count must be at least 1");
+    }
+
+    this.threads = threads;
+  }
+
+  /** Recursively finds all regular files under root whose path relative to root matches the glob, sorted for stable output */
+  public static List<Path> collectFiles(final Path root, final String glob) throws IOException {
+    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+
+    try(final Stream<Path> stream = Files.walk(root)) {
+      return stream
+        .filter(Files::isRegularFile)
+        .filter(file -> matcher.matches(root.relativize(file)))
+        .sorted(Comparator.naturalOrder())
+        .toList();
+    }
+  }
+
+  public BatchResult run(final List<Path> files, final FileTask task) {
+    final ConcurrentLinkedQueue<BatchFailure> failures = new ConcurrentLinkedQueue<>();
+    final ForkJoinPool pool = new ForkJoinPool(this.threads);
+    final long start = System.nanoTime();
+    final long elapsed;
+
+    try {
+      final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+      for(final Path file : files) {
+        tasks.add(pool.submit(() -> {
+          try {
+            task.process(file);
+          } catch(final Throwable e) { // Errors too, so running out of memory on one huge file doesn't abort the run
+            failures.add(new BatchFailure(file, e));
+          }
+        }));
+      }
+
+      for(final ForkJoinTask<?> t : tasks) {
+        t.join();
+      }
+
+      elapsed = System.nanoTime() - start;
+    } finally {
+      pool.shutdown();
+    }
+
+    final List<BatchFailure> sortedFailures = failures.stream().sorted(Comparator.comparing(failure -> failure.file)).toList();
+    return new BatchResult(files.size(), sortedFailures, elapsed);
+  }
+}
@@ -0,0 +1,122 @@
+package org.legendofdragoon.scripting.batch;
+
+import org.legendofdragoon.scripting.Compiler;
+import org.legendofdragoon.scripting.Disassembler;
+import org.legendofdragoon.scripting.Lexer;
+import org.legendofdragoon.scripting.Translator;
+import org.legendofdragoon.scripting.meta.Meta;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times one pipeline stage over an in-memory corpus. Files are read up front so only the tool itself is measured;
+ * warmup iterations run the same work but aren't recorded.
+ */
+public class Bench {
+  public enum Mode {
+    /** Disassemble and translate binaries */
+    DECOMPILE,
+    /** Lex and compile sources */
+    COMPILE,
+    /** Decompile, recompile and compare binaries */
+    ROUNDTRIP,
+  }
+
+  private final Meta meta;
+  private final Mode mode;
+  private final BatchRunner runner;
+
+  public Bench(final Meta meta, final Mode mode, final int threads) {
+    this.meta = meta;
+    this.mode = mode;
+    this.runner = new BatchRunner(threads);
+  }
+
+  public BenchResult run(final List<Path> files, final int warmupIterations, final int measuredIterations) throws IOException {
+    final Map<Path, byte[]> contents = new HashMap<>();
+    long corpusBytes = 0;
+
+    for(final Path file : files) {
+      final byte[] data = Files.readAllBytes(file);
+      contents.put(file, data);
+      corpusBytes += data.length;
+    }
+
+    final AtomicInteger mismatches = new AtomicInteger();
+
+    for(int i = 0; i < warmupIterations; i++) {
+      final BatchResult result = this.runner.run(files, file -> this.process(contents.get(file), mismatches));
+
+      if(!result.failures.isEmpty()) {
+        return new BenchResult(files.size(), 0, new long[0], 0, corpusBytes, 0, result.failures, 0);
+      }
+    }
+
+    mismatches.set(0);
+    resetPeakHeap();
+
+    final long[] latencies = new long[files.size() * measuredIterations];
+    final AtomicInteger latencyCount = new AtomicInteger();
+    final AtomicLong elapsed = new AtomicLong();
+
+    for(int i = 0; i < measuredIterations; i++) {
+      final BatchResult result = this.runner.run(files, file -> {
+        final long start = System.nanoTime();
+        this.process(contents.get(file), mismatches);
+        latencies[latencyCount.getAndIncrement()] = System.nanoTime() - start;
+      });
+
+      elapsed.addAndGet(result.elapsedNanos);
+
+      if(!result.failures.isEmpty()) {
+        return new BenchResult(files.size(), i, new long[0], elapsed.get(), corpusBytes, peakHeap(), result.failures, mismatches.get());
+      }
+    }
+
+    return new BenchResult(files.size(), measuredIterations, latencies, elapsed.get(), corpusBytes, peakHeap(), List.of(), mismatches.get());
+  }
+
+  private void process(final byte[] data, final AtomicInteger mismatches) {
+    switch(this.mode) {
+      case DECOMPILE -> new Translator().translate(new Disassembler(this.meta).disassemble(data, new int[0]), this.meta, false, false);
+      case COMPILE -> new Compiler().compile(new Lexer(this.meta).lex(new String(data, StandardCharsets.UTF_8)));
+      case ROUNDTRIP -> {
+        if(!RoundTrip.run(this.meta, data).matches()) {
+          mismatches.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  private static void resetPeakHeap() {
+    for(final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if(pool.getType() == MemoryType.HEAP) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  /** Sum of the per-pool peaks since the last reset. The pools don't necessarily peak at the same time, so this is an upper bound. */
+  private static long peakHeap() {
+    long peak = 0;
+
+    for(final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if(pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+    }
+
+    return peak;
+  }
+}
@@ -0,0 +1,54 @@
+package org.legendofdragoon.scripting.batch;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BenchResult {
+  public final int files;
+  /** The number of measured iterations that completed */
+  public final int iterations;
+  /** Per-file latencies of every measured iteration, sorted */
+  public final long[] latencyNanos;
+  /** Wall-clock time of the measured iterations */
+  public final long elapsedNanos;
+  /** Size of one pass over the corpus */
+  public final long corpusBytes;
+  public final long peakHeapBytes;
+  public final List<BatchFailure> failures;
+  /** Round trips that didn't reproduce the original, summed over the measured iterations */
+  public final int mismatches;
+
+  public BenchResult(final int files, final int iterations, final long[] latencyNanos, final long elapsedNanos, final long corpusBytes, final long peakHeapBytes, final List<BatchFailure> failures, final int mismatches) {
+    this.files = files;
+    this.iterations = iterations;
+    this.latencyNanos = latencyNanos.clone();
+    Arrays.sort(this.latencyNanos);
+    this.elapsedNanos = elapsedNanos;
+    this.corpusBytes = corpusBytes;
+    this.peakHeapBytes = peakHeapBytes;
+    this.failures = failures;
+    this.mismatches = mismatches;
+  }
+
+  /** Nearest-rank percentile of the per-file latencies, in milliseconds */
+  public double percentileMillis(final double percentile) {
+    if(this.latencyNanos.length == 0) {
+      return 0.0d;
+    }
+
+    final int rank = (int)Math.ceil(percentile / 100.0d * this.latencyNanos.length);
+    return this.latencyNanos[Math.clamp(rank - 1, 0, this.latencyNanos.length - 1)] / 1_000_000.0d;
+  }
+
+  public double seconds() {
+    return this.elapsedNanos / 1_000_000_000.0d;
+  }
+
+  public double filesPerSecond() {
+    return this.elapsedNanos == 0 ? 0.0d : (double)this.files * this.iterations / this.seconds();
+  }
+
+  public double bytesPerSecond() {
+    return this.elapsedNanos == 0 ? 0.0d : (double)this.corpusBytes * this.iterations / this.seconds();
+  }
+}
@@ -0,0 +1,110 @@
+package org.legendofdragoon.scripting.batch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where each script lives inside a container blob. The index file has one {@code offset length name} line per script;
+ * offsets and lengths may be decimal or 0x-prefixed hex, names are relative paths, and blank lines and lines starting
+ * with # are ignored. Names that aren't a path, are absolute or use .. are left out of the index and listed in
+ * {@link #rejected} instead, since they would be written outside the output directory.
+ */
+public class BlobIndex {
+  public static class Entry {
+    public final String name;
+    public final int offset;
+    public final int length;
+
+    public Entry(final String name, final int offset, final int length) {
+      this.name = name;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /** @return a view of this entry's bytes that shares the blob's memory */
+    public ByteBuffer slice(final ByteBuffer blob) {
+      return blob.slice(this.offset, this.length);
+    }
+  }
+
+  private final Map<Path, Entry> entries;
+  /** Why each rejected name was rejected */
+  public final List<String> rejected;
+
+  private BlobIndex(final Map<Path, Entry> entries, final List<String> rejected) {
+    this.entries = entries;
+    this.rejected = rejected;
+  }
+
+  /** Reads an index, checking that every entry fits inside a blob of the given size */
+  public static BlobIndex read(final Path indexFile, final long blobSize) throws IOException {
+    final Map<Path, Entry> entries = new LinkedHashMap<>();
+    final List<String> rejected = new ArrayList<>();
+    final List<String> lines = Files.readAllLines(indexFile);
+
+    for(int i = 0; i < lines.size(); i++) {
+      final String line = lines.get(i).strip();
+
+      if(line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      final String[] parts = line.split("\\s+", 3);
+
+      if(parts.length != 3) {
+        throw new IllegalArgumentException("Line %d of %s is not \"offset length name\"".formatted(i + 1, indexFile));
+      }
+
+      final Entry entry;
+      try {
+        entry = new Entry(parts[2], Integer.decode(parts[0]), Integer.decode(parts[1]));
+      } catch(final NumberFormatException e) {
+        throw new IllegalArgumentException("Line %d of %s has a bad offset or length: %s".formatted(i + 1, indexFile, e.getMessage()));
+      }
+
+      if(entry.offset < 0 || entry.length < 0 || (long)entry.offset + entry.length > blobSize) {
+        throw new IllegalArgumentException("Line %d of %s (%s) is outside the blob".formatted(i + 1, indexFile, entry.name));
+      }
+
+      final Path name;
+      try {
+        name = Path.of(entry.name);
+      } catch(final InvalidPathException e) {
+        rejected.add("Line %d of %s: %s is not a valid name: %s".formatted(i + 1, indexFile, entry.name, e.getReason()));
+        continue;
+      }
+
+      if(name.getRoot() != null || !name.normalize().equals(name) || name.startsWith("..")) {
+        rejected.add("Line %d of %s: %s must be a relative path without . or ..".formatted(i + 1, indexFile, entry.name));
+        continue;
+      }
+
+      if(entries.putIfAbsent(name, entry) != null) {
+        throw new IllegalArgumentException("Line %d of %s repeats the name %s".formatted(i + 1, indexFile, entry.name));
+      }
+    }
+
+    return new BlobIndex(entries, Collections.unmodifiableList(rejected));
+  }
+
+  /** @return the entry names as relative paths, in index order */
+  public List<Path> names() {
+    return Collections.unmodifiableList(new ArrayList<>(this.entries.keySet()));
+  }
+
+  public Entry get(final Path name) {
+    return this.entries.get(name);
+  }
+
+  public int size() {
+    return this.entries.size();
+  }
+}
@@ -0,0 +1,103 @@
+package org.legendofdragoon.scripting.batch;
+
+import org.legendofdragoon.scripting.meta.Meta;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * On-disk record of the inputs each output file was last built from. An output is up-to-date when it still exists
+ * and the hash of its source, the meta version, and the tool version all match what was recorded.
+ */
+public class BuildCache {
+  private final Path dir;
+  private final String metaKey;
+
+  public BuildCache(final Path dir, final String metaVersion, final Meta meta) {
+    this.dir = dir;
+
+    // Snapshot meta changes without its version changing, so key it on its contents instead
+    this.metaKey = "snapshot".equals(metaVersion) ? "snapshot-" + fingerprint(meta) : metaVersion;
+  }
+
+  public static String getToolVersion() {
+    final String version = BuildCache.class.getPackage().getImplementationVersion();
+    return version != null ? version : "dev";
+  }
+
+  public String key(final byte[] source) {
+    final MessageDigest digest = sha256();
+    digest.update(source);
+    digest.update((byte)0);
+    digest.update(this.metaKey.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+    digest.update(getToolVersion().getBytes(StandardCharsets.UTF_8));
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  public boolean isUpToDate(final Path outputFile, final String key) throws IOException {
+    final Path entry = this.entry(outputFile);
+
+    if(!Files.exists(outputFile) || !Files.exists(entry)) {
+      return false;
+    }
+
+    return key.equals(Files.readString(entry));
+  }
+
+  public void store(final Path outputFile, final String key) throws IOException {
+    final Path entry = this.entry(outputFile);
+    Files.createDirectories(this.dir);
+
+    // Write to a temp file and move it into place so parallel builds never see a partial entry
+    final Path temp = Files.createTempFile(this.dir, entry.getFileName().toString(), ".tmp");
+    Files.writeString(temp, key);
+    Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private Path entry(final Path outputFile) {
+    return this.dir.resolve(HexFormat.of().formatHex(sha256().digest(outputFile.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8))));
+  }
+
+  private static String fingerprint(final Meta meta) {
+    final MessageDigest digest = sha256();
+
+    for(final Meta.ScriptMethod method : meta.methods) {
+      digest.update(method.name.getBytes(StandardCharsets.UTF_8));
+
+      for(final Meta.ScriptParam param : method.params) {
+        digest.update((param.direction + ',' + param.type + ',' + param.name + ',' + param.branch + ';').getBytes(StandardCharsets.UTF_8));
+      }
+
+      digest.update((byte)'\n');
+    }
+
+    for(final Map.Entry<String, String[]> entry : new TreeMap<>(meta.enums).entrySet()) {
+      digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+
+      for(final String value : entry.getValue()) {
+        digest.update((',' + value).getBytes(StandardCharsets.UTF_8));
+      }
+
+      digest.update((byte)'\n');
+    }
+
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch(final NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-256 not available", e);
+    }
+  }
+}
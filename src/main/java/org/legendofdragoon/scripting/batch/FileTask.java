@@ -0,0 +1,8 @@
+package org.legendofdragoon.scripting.batch;
+
+import java.nio.file.Path;
+
+@FunctionalInterface
+public interface FileTask {
+  void process(final Path file) throws Exception;
+}
@@ -0,0 +1,70 @@
+package org.legendofdragoon.scripting.batch;
+
+import org.legendofdragoon.scripting.Compiler;
+import org.legendofdragoon.scripting.Disassembler;
+import org.legendofdragoon.scripting.Lexer;
+import org.legendofdragoon.scripting.Translator;
+import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.tokens.Script;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/** Decompiles, re-lexes and recompiles a script entirely in memory and compares the result with the original words */
+public class RoundTrip {
+  /** Address of the first word that differs, or -1 if the round trip reproduced the original */
+  public final int mismatchAddress;
+  public final int expected;
+  public final int actual;
+  public final int originalWords;
+  public final int recompiledWords;
+
+  private RoundTrip(final int mismatchAddress, final int expected, final int actual, final int originalWords, final int recompiledWords) {
+    this.mismatchAddress = mismatchAddress;
+    this.expected = expected;
+    this.actual = actual;
+    this.originalWords = originalWords;
+    this.recompiledWords = recompiledWords;
+  }
+
+  public static RoundTrip run(final Meta meta, final byte[] original) {
+    final Script script = new Disassembler(meta).disassemble(original, new int[0]);
+    final String source = new Translator().translate(script, meta, false, false);
+    final Script lexed = new Lexer(meta).lex(source);
+    final int[] recompiled = new Compiler().compile(lexed);
+
+    final IntBuffer words = ByteBuffer.wrap(original).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    final int originalWords = words.remaining();
+    final int common = Math.min(originalWords, recompiled.length);
+
+    for(int i = 0; i < common; i++) {
+      if(words.get(i) != recompiled[i]) {
+        return new RoundTrip(i * 0x4, words.get(i), recompiled[i], originalWords, recompiled.length);
+      }
+    }
+
+    if(originalWords != recompiled.length) {
+      return new RoundTrip(common * 0x4, common < originalWords ? words.get(common) : 0, common < recompiled.length ? recompiled[common] : 0, originalWords, recompiled.length);
+    }
+
+    return new RoundTrip(-1, 0, 0, originalWords, recompiled.length);
+  }
+
+  public boolean matches() {
+    return this.mismatchAddress == -1;
+  }
+
+  @Override
+  public String toString() {
+    if(this.matches()) {
+      return "match";
+    }
+
+    if(this.originalWords != this.recompiledWords && this.mismatchAddress == Math.min(this.originalWords, this.recompiledWords) * 0x4) {
+      return "length differs at 0x%x (original %d words, recompiled %d words)".formatted(this.mismatchAddress, this.originalWords, this.recompiledWords);
+    }
+
+    return "first difference at 0x%x (expected 0x%08x, got 0x%08x)".formatted(this.mismatchAddress, this.expected, this.actual);
+  }
+}
@@ -0,0 +1,181 @@
+package org.legendofdragoon.scripting.fuzz;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.legendofdragoon.scripting.meta.Meta;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Slow inputs saved by the fuzzer, with the throughput each one has to keep up. The manifest has one
+ * {@code target minBytesPerSecond file} line per fixture; blank lines and lines starting with # are ignored.
+ */
+public final class Fixtures {
+  private Fixtures() { }
+
+  private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+  public static final String MANIFEST = "fixtures.txt";
+  /** Measurements per fixture. The median counts, so one noisy sample can neither set a floor nor fail it. */
+  private static final int SAMPLES = 5;
+
+  /**
+   * Measures the cases again and saves them, appending them to the manifest. Each one's floor is its median throughput
+   * divided by {@code slack}, so only a real regression trips it and not a noisy or slower machine. Cases that hit the
+   * disassembly deadline are left out, their throughput only says how long the deadline is.
+   *
+   * @return the number of fixtures saved
+   */
+  public static int write(final Path dir, final List<FuzzCase> cases, final double slack, final Meta meta, final String metaVersion, final Duration timeout) throws IOException {
+    final List<Fuzzer> fuzzers = new ArrayList<>();
+    final List<byte[]> inputs = new ArrayList<>();
+
+    for(final FuzzCase fuzzCase : cases) {
+      if(fuzzCase.capped) {
+        LOGGER.warn("Not saving a %d byte %s input, it hit the %d ms deadline", fuzzCase.input.length, fuzzCase.target.name().toLowerCase(Locale.ROOT), timeout.toMillis());
+        continue;
+      }
+
+      fuzzers.add(new Fuzzer(meta, fuzzCase.target, 0, timeout));
+      inputs.add(fuzzCase.input);
+    }
+
+    final List<FuzzCase> measured = measureMedians(fuzzers, inputs, Duration.ZERO);
+
+    Files.createDirectories(dir);
+
+    final Path manifest = dir.resolve(MANIFEST);
+    final List<String> lines = new ArrayList<>();
+
+    if(!Files.exists(manifest)) {
+      lines.add("# target minBytesPerSecond file, written by fuzz using meta " + metaVersion);
+    }
+
+    int saved = 0;
+    for(final FuzzCase fuzzCase : measured) {
+      final String target = fuzzCase.target.name().toLowerCase(Locale.ROOT);
+
+      if(fuzzCase.capped) {
+        LOGGER.warn("Not saving a %d byte %s input, it hit the %d ms deadline when measured again", fuzzCase.input.length, target, timeout.toMillis());
+        continue;
+      }
+
+      final String name = "%s_%08x.%s".formatted(target, Arrays.hashCode(fuzzCase.input), fuzzCase.target == Fuzzer.Target.LEX ? "txt" : "bin");
+
+      Files.write(dir.resolve(name), fuzzCase.input);
+      lines.add("%s %d %s".formatted(target, (long)(fuzzCase.bytesPerSecond() / slack), name));
+      saved++;
+    }
+
+    Files.write(manifest, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    return saved;
+  }
+
+  /**
+   * Replays every fixture in the manifest after warming up on them for {@code warmup}. The floors were measured in a
+   * JVM the fuzzer had already warmed, so a fresh one needs a few seconds of this before comparing. A fixture that hits the disassembly
+   * deadline fails whatever its throughput, since the deadline stopped it before it could show how slow it got.
+   *
+   * @return a message for each fixture that fell below its floor
+   */
+  public static List<String> check(final Path dir, final Meta meta, final Duration warmup, final Duration timeout) throws IOException {
+    final Path manifest = dir.resolve(MANIFEST);
+    final List<String> lines = Files.readAllLines(manifest);
+    final List<Fuzzer> fuzzers = new ArrayList<>();
+    final List<byte[]> inputs = new ArrayList<>();
+    final List<Long> floors = new ArrayList<>();
+    final List<String> names = new ArrayList<>();
+
+    for(int i = 0; i < lines.size(); i++) {
+      final String line = lines.get(i).strip();
+
+      if(line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      final String[] parts = line.split("\\s+", 3);
+
+      if(parts.length != 3) {
+        throw new IllegalArgumentException("Line %d of %s is not \"target minBytesPerSecond file\"".formatted(i + 1, manifest));
+      }
+
+      final Fuzzer.Target target;
+      try {
+        target = Fuzzer.Target.valueOf(parts[0].toUpperCase(Locale.ROOT));
+      } catch(final IllegalArgumentException e) {
+        throw new IllegalArgumentException("Line %d of %s has an unknown target %s".formatted(i + 1, manifest, parts[0]));
+      }
+
+      fuzzers.add(new Fuzzer(meta, target, 0, timeout));
+      floors.add(Long.parseLong(parts[1]));
+      inputs.add(Files.readAllBytes(dir.resolve(parts[2])));
+      names.add(parts[2]);
+    }
+
+    final List<FuzzCase> measured = measureMedians(fuzzers, inputs, warmup);
+
+    final List<String> failures = new ArrayList<>();
+    for(int i = 0; i < inputs.size(); i++) {
+      final FuzzCase fuzzCase = measured.get(i);
+
+      if(fuzzCase.capped) {
+        failures.add("%s: hit the %d ms deadline, expected at least %d bytes/sec".formatted(names.get(i), timeout.toMillis(), floors.get(i)));
+      } else if(fuzzCase.bytesPerSecond() < floors.get(i)) {
+        failures.add("%s: %.0f bytes/sec, expected at least %d".formatted(names.get(i), fuzzCase.bytesPerSecond(), floors.get(i)));
+      }
+    }
+
+    return failures;
+  }
+
+  /**
+   * Takes {@link #SAMPLES} measurements of each input after unmeasured passes over all of them for at least
+   * {@code warmup}, and at least one pass. The passes go round every input in turn so a slow stretch of the machine is
+   * spread over them instead of landing on one.
+   *
+   * @return the median measurement of each input, or a capped one if any of its samples hit the deadline
+   */
+  private static List<FuzzCase> measureMedians(final List<Fuzzer> fuzzers, final List<byte[]> inputs, final Duration warmup) {
+    final long start = System.nanoTime();
+
+    do {
+      for(int i = 0; i < inputs.size(); i++) {
+        fuzzers.get(i).measure(inputs.get(i));
+      }
+    } while(System.nanoTime() - start < warmup.toNanos());
+
+    final List<List<FuzzCase>> samples = new ArrayList<>();
+    for(int i = 0; i < inputs.size(); i++) {
+      samples.add(new ArrayList<>());
+    }
+
+    for(int pass = 0; pass < SAMPLES; pass++) {
+      for(int i = 0; i < inputs.size(); i++) {
+        samples.get(i).add(fuzzers.get(i).measure(inputs.get(i)));
+      }
+    }
+
+    final List<FuzzCase> medians = new ArrayList<>();
+    for(final List<FuzzCase> sample : samples) {
+      final FuzzCase capped = sample.stream().filter(fuzzCase -> fuzzCase.capped).findFirst().orElse(null);
+
+      if(capped != null) {
+        medians.add(capped);
+      } else {
+        sample.sort(Comparator.comparingLong(fuzzCase -> fuzzCase.nanos));
+        medians.add(sample.get(SAMPLES / 2));
+      }
+    }
+
+    return medians;
+  }
+}
@@ -0,0 +1,39 @@
+package org.legendofdragoon.scripting.fuzz;
+
+/** One input and how expensive it was to process */
+public class FuzzCase {
+  public final Fuzzer.Target target;
+  public final byte[] input;
+  /** The fastest of the repeated runs */
+  public final long nanos;
+  /** Allocated by the fastest run */
+  public final long allocatedBytes;
+  /** What the input threw, or null. Broken input is expected, only the time it takes matters. */
+  public final String failure;
+  /**
+   * Every run hit the disassembly deadline, so {@link #nanos} is roughly the timeout and says nothing about how slow the
+   * input really is
+   */
+  public final boolean capped;
+
+  public FuzzCase(final Fuzzer.Target target, final byte[] input, final long nanos, final long allocatedBytes, final String failure, final boolean capped) {
+    this.target = target;
+    this.input = input;
+    this.nanos = nanos;
+    this.allocatedBytes = allocatedBytes;
+    this.failure = failure;
+    this.capped = capped;
+  }
+
+  public double nanosPerByte() {
+    return (double)this.nanos / Math.max(1, this.input.length);
+  }
+
+  public double allocatedPerByte() {
+    return (double)this.allocatedBytes / Math.max(1, this.input.length);
+  }
+
+  public double bytesPerSecond() {
+    return this.input.length / (Math.max(1, this.nanos) / 1_000_000_000.0d);
+  }
+}
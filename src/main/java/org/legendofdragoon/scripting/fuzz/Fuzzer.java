@@ -0,0 +1,168 @@
+package org.legendofdragoon.scripting.fuzz;
+
+import com.sun.management.ThreadMXBean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.legendofdragoon.scripting.Disassembler;
+import org.legendofdragoon.scripting.DisassemblyBudget;
+import org.legendofdragoon.scripting.Lexer;
+import org.legendofdragoon.scripting.meta.Meta;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mutation fuzzer that hunts for slow inputs rather than crashes. It keeps a population of the slowest inputs found so
+ * far, ranked by nanoseconds per byte, and mutates the slower ones more often. Inputs that make the disassembler or
+ * lexer do super-linear work get slower from one generation to the next.
+ */
+public class Fuzzer {
+  private static final Logger LOGGER = LogManager.getFormatterLogger();
+  private static final ThreadMXBean THREADS = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+  public enum Target {
+    /** Binaries through {@link Disassembler#disassemble} */
+    DISASSEMBLE,
+    /** Sources through {@link Lexer#lex} */
+    LEX,
+  }
+
+  private static final int POPULATION = 64;
+  /** Runs per measurement. The fastest counts so a GC pause doesn't make an input look slow. */
+  private static final int REPEATS = 3;
+
+  private final Meta meta;
+  private final Target target;
+  private final Random random;
+  private final Duration timeout;
+
+  /** @param timeout How long one disassembly may run before its budget stops it, so one input can't stall the run */
+  public Fuzzer(final Meta meta, final Target target, final long seed, final Duration timeout) {
+    this.meta = meta;
+    this.target = target;
+    this.random = new Random(seed);
+    this.timeout = timeout;
+  }
+
+  public FuzzCase measure(final byte[] input) {
+    long nanos = Long.MAX_VALUE;
+    long allocated = 0;
+    String failure = null;
+
+    for(int i = 0; i < REPEATS; i++) {
+      final long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+      final long start = System.nanoTime();
+
+      try {
+        this.process(input);
+      } catch(final RuntimeException | StackOverflowError e) {
+        failure = e.toString();
+      }
+
+      final long elapsed = System.nanoTime() - start;
+
+      if(elapsed < nanos) {
+        nanos = elapsed;
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+      }
+
+      // No need to repeat something this slow, it isn't noise
+      if(elapsed > this.timeout.toNanos() / REPEATS) {
+        break;
+      }
+    }
+
+    // The budget only stops a disassembly once it's past the deadline, so a fastest run that reached it was cut short
+    return new FuzzCase(this.target, input, nanos, allocated, failure, this.target == Target.DISASSEMBLE && nanos >= this.timeout.toNanos());
+  }
+
+  public void process(final byte[] input) {
+    switch(this.target) {
+      case DISASSEMBLE -> new Disassembler(this.meta).budget(new DisassemblyBudget().deadline(this.timeout)).disassemble(input, new int[0]);
+      case LEX -> new Lexer(this.meta).lex(new String(input, StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * @param warmup Unmeasured passes over the seeds, so the hot paths are compiled before anything is compared
+   * @param timeLimit Stops early once this much time has passed, or null to run every iteration
+   * @return the slowest inputs found, slowest first
+   */
+  public List<FuzzCase> run(final List<byte[]> seeds, final int iterations, final Duration timeLimit, final int warmup) {
+    if(seeds.isEmpty()) {
+      throw new IllegalArgumentException("No seeds to fuzz " + this.target.name().toLowerCase() + " with");
+    }
+
+    for(int i = 0; i < warmup; i++) {
+      for(final byte[] seed : seeds) {
+        this.measure(seed);
+      }
+    }
+
+    final List<FuzzCase> population = new ArrayList<>();
+    int maxBytes = 0;
+    for(final byte[] seed : seeds) {
+      this.offer(population, this.measure(seed));
+      maxBytes = Math.max(maxBytes, seed.length);
+    }
+
+    // Let inputs grow a bit, but not so much that the slowest inputs are just the biggest
+    final Mutator mutator = new Mutator(this.random, maxBytes * 2);
+    final long start = System.nanoTime();
+
+    for(int i = 0; i < iterations; i++) {
+      if(timeLimit != null && System.nanoTime() - start > timeLimit.toNanos()) {
+        LOGGER.info("Time limit reached after %d inputs", i);
+        break;
+      }
+
+      final FuzzCase parent = this.select(population);
+      final byte[] donor = population.get(this.random.nextInt(population.size())).input;
+      final byte[] child = this.target == Target.DISASSEMBLE ? mutator.mutateWords(parent.input, donor) : mutator.mutateText(parent.input, donor);
+      this.offer(population, this.measure(child));
+
+      if((i + 1) % 500 == 0) {
+        LOGGER.info("Fuzzed %d inputs, slowest %.1f ns/byte", i + 1, this.slowest(population).nanosPerByte());
+      }
+    }
+
+    final List<FuzzCase> sorted = new ArrayList<>(population);
+    sorted.sort(Comparator.comparingDouble(FuzzCase::nanosPerByte).reversed());
+    return sorted;
+  }
+
+  /** Picks the slower of two random members */
+  private FuzzCase select(final List<FuzzCase> population) {
+    final FuzzCase a = population.get(this.random.nextInt(population.size()));
+    final FuzzCase b = population.get(this.random.nextInt(population.size()));
+    return a.nanosPerByte() >= b.nanosPerByte() ? a : b;
+  }
+
+  /** Adds the case if there's room, otherwise it replaces the fastest member if it's slower */
+  private void offer(final List<FuzzCase> population, final FuzzCase candidate) {
+    if(population.size() < POPULATION) {
+      population.add(candidate);
+      return;
+    }
+
+    int fastest = 0;
+    for(int i = 1; i < population.size(); i++) {
+      if(population.get(i).nanosPerByte() < population.get(fastest).nanosPerByte()) {
+        fastest = i;
+      }
+    }
+
+    if(candidate.nanosPerByte() > population.get(fastest).nanosPerByte()) {
+      population.set(fastest, candidate);
+    }
+  }
+
+  private FuzzCase slowest(final List<FuzzCase> population) {
+    return population.stream().max(Comparator.comparingDouble(FuzzCase::nanosPerByte)).orElseThrow();
+  }
+}
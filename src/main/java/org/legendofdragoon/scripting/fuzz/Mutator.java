@@ -0,0 +1,132 @@
+package org.legendofdragoon.scripting.fuzz;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/** Mutates script binaries a word at a time and script sources a line at a time, stacking a few mutations per child */
+class Mutator {
+  /** Words worth trying: zero, all ones, string terminators, extremes, and param counts with no opcode */
+  private static final int[] INTERESTING_WORDS = {0, -1, 0xa0ff, 0xa0ffa0ff, Integer.MAX_VALUE, Integer.MIN_VALUE, 0x01000000, 0xff00};
+  /** Characters the lexer treats specially */
+  private static final String SYNTAX = "[]:,;\"<>=+- \t0x";
+  private static final int MAX_STACKED = 4;
+
+  private final Random random;
+  private final int maxBytes;
+
+  Mutator(final Random random, final int maxBytes) {
+    this.random = random;
+    this.maxBytes = maxBytes;
+  }
+
+  byte[] mutateWords(final byte[] input, final byte[] donor) {
+    int[] words = toWords(input);
+    final int[] donorWords = toWords(donor);
+
+    if(words.length == 0) {
+      words = new int[] {0};
+    }
+
+    final int mutations = 1 + this.random.nextInt(MAX_STACKED);
+    for(int i = 0; i < mutations; i++) {
+      final int at = this.random.nextInt(words.length);
+
+      switch(this.random.nextInt(8)) {
+        case 0 -> words[at] ^= 1 << this.random.nextInt(32);
+        case 1 -> words[at] = INTERESTING_WORDS[this.random.nextInt(INTERESTING_WORDS.length)];
+        case 2 -> words[at] = words[this.random.nextInt(words.length)]; // Usually copies an op header or a param
+        case 3 -> words[at] = this.random.nextInt(64) - 32; // A short relative table offset
+        case 4 -> words[at] = (words[at] & 0xffffff) | this.random.nextInt(0x22) << 24; // Another param type
+        case 5 -> words[this.random.nextInt(Math.min(0x20, words.length))] = this.random.nextInt(words.length) * 0x4; // Retarget an entrypoint
+        case 6 -> { // Splice in a chunk of the donor
+          if(donorWords.length != 0) {
+            final int from = this.random.nextInt(donorWords.length);
+            final int length = Math.min(1 + this.random.nextInt(64), Math.min(donorWords.length - from, words.length - at));
+            System.arraycopy(donorWords, from, words, at, length);
+          }
+        }
+        case 7 -> words = this.resize(words, at);
+        default -> throw new IllegalStateException();
+      }
+    }
+
+    final ByteBuffer out = ByteBuffer.allocate(words.length * 0x4).order(ByteOrder.LITTLE_ENDIAN);
+    out.asIntBuffer().put(words);
+    return out.array();
+  }
+
+  /** Duplicates or deletes a chunk of words starting at {@code at} */
+  private int[] resize(final int[] words, final int at) {
+    final int length = Math.min(1 + this.random.nextInt(64), words.length - at);
+
+    if(this.random.nextBoolean() && (words.length + length) * 0x4 <= this.maxBytes) {
+      final int[] out = new int[words.length + length];
+      System.arraycopy(words, 0, out, 0, at + length);
+      System.arraycopy(words, at, out, at + length, words.length - at);
+      return out;
+    }
+
+    if(words.length - length == 0) {
+      return words;
+    }
+
+    final int[] out = new int[words.length - length];
+    System.arraycopy(words, 0, out, 0, at);
+    System.arraycopy(words, at + length, out, at, words.length - at - length);
+    return out;
+  }
+
+  byte[] mutateText(final byte[] input, final byte[] donor) {
+    final List<String> lines = new ArrayList<>(Arrays.asList(new String(input, StandardCharsets.UTF_8).split("\n", -1)));
+    final String[] donorLines = new String(donor, StandardCharsets.UTF_8).split("\n", -1);
+
+    final int mutations = 1 + this.random.nextInt(MAX_STACKED);
+    for(int i = 0; i < mutations; i++) {
+      final int at = this.random.nextInt(lines.size());
+      final String line = lines.get(at);
+
+      switch(this.random.nextInt(7)) {
+        case 0 -> lines.add(this.random.nextInt(lines.size() + 1), line);
+        case 1 -> {
+          if(lines.size() > 1) {
+            lines.remove(at);
+          }
+        }
+        case 2 -> {
+          final int other = this.random.nextInt(lines.size());
+          lines.set(at, lines.get(other));
+          lines.set(other, line);
+        }
+        case 3 -> lines.add(at, donorLines[this.random.nextInt(donorLines.length)]);
+        case 4 -> { // Insert a syntax character
+          final int position = this.random.nextInt(line.length() + 1);
+          lines.set(at, line.substring(0, position) + SYNTAX.charAt(this.random.nextInt(SYNTAX.length())) + line.substring(position));
+        }
+        case 5 -> { // Repeat part of the line, long lines and deep nesting are where regexes go quadratic
+          if(!line.isEmpty()) {
+            final int from = this.random.nextInt(line.length());
+            final int to = from + 1 + this.random.nextInt(line.length() - from);
+            final String repeated = line.substring(from, to).repeat(2 + this.random.nextInt(64));
+            lines.set(at, line.substring(0, to) + repeated + line.substring(to));
+          }
+        }
+        case 6 -> lines.set(at, line.replaceFirst("0x[0-9a-fA-F]+|\\d+", "0x" + Integer.toHexString(this.random.nextInt())));
+        default -> throw new IllegalStateException();
+      }
+    }
+
+    final byte[] out = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+    return out.length <= this.maxBytes ? out : input;
+  }
+
+  private static int[] toWords(final byte[] bytes) {
+    final int[] words = new int[bytes.length / 0x4];
+    ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(words);
+    return words;
+  }
+}
@@ -0,0 +1,21 @@
+package org.legendofdragoon.scripting.generator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class GeneratedScript {
+  public final int[] words;
+  /** Source that compiles to exactly {@link #words} */
+  public final String source;
+
+  public GeneratedScript(final int[] words, final String source) {
+    this.words = words;
+    this.source = source;
+  }
+
+  public byte[] bytes() {
+    final ByteBuffer buffer = ByteBuffer.allocate(this.words.length * 0x4).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.asIntBuffer().put(this.words);
+    return buffer.array();
+  }
+}
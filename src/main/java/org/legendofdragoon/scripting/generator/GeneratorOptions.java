@@ -0,0 +1,71 @@
+package org.legendofdragoon.scripting.generator;
+
+/** Knobs for {@link ScriptGenerator}. Counts are minimums; the generator adds routines until the target size is reached. */
+public class GeneratorOptions {
+  public long seed = 0x5eed;
+  /** Approximate size of the generated script */
+  public int targetBytes = 16 * 1024;
+  /** Entrypoints in the header, at most 0x20 */
+  public int entrypoints = 0x10;
+  /** Average number of ops in each routine */
+  public int routineLength = 24;
+  /** Chance that an op is a conditional jump, gosub or fork */
+  public double branchDensity = 0.15d;
+  /** Chance that an op is a CALL */
+  public double callRatio = 0.25d;
+  public int jumpTables = 4;
+  public int gosubTables = 2;
+  public int stringTables = 4;
+  /** Words of unreferenced data appended after the code */
+  public int dataWords = 64;
+
+  public GeneratorOptions seed(final long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public GeneratorOptions targetBytes(final int targetBytes) {
+    this.targetBytes = targetBytes;
+    return this;
+  }
+
+  public GeneratorOptions entrypoints(final int entrypoints) {
+    this.entrypoints = entrypoints;
+    return this;
+  }
+
+  public GeneratorOptions routineLength(final int routineLength) {
+    this.routineLength = routineLength;
+    return this;
+  }
+
+  public GeneratorOptions branchDensity(final double branchDensity) {
+    this.branchDensity = branchDensity;
+    return this;
+  }
+
+  public GeneratorOptions callRatio(final double callRatio) {
+    this.callRatio = callRatio;
+    return this;
+  }
+
+  public GeneratorOptions jumpTables(final int jumpTables) {
+    this.jumpTables = jumpTables;
+    return this;
+  }
+
+  public GeneratorOptions gosubTables(final int gosubTables) {
+    this.gosubTables = gosubTables;
+    return this;
+  }
+
+  public GeneratorOptions stringTables(final int stringTables) {
+    this.stringTables = stringTables;
+    return this;
+  }
+
+  public GeneratorOptions dataWords(final int dataWords) {
+    this.dataWords = dataWords;
+    return this;
+  }
+}
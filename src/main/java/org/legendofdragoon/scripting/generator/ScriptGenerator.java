@@ -0,0 +1,704 @@
+package org.legendofdragoon.scripting.generator;
+
+import org.legendofdragoon.scripting.OpType;
+import org.legendofdragoon.scripting.ParameterType;
+import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.tokens.LodString;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates random but well-formed scripts along with source that compiles back to the same words. All code is
+ * reachable from the entrypoints through the same constructs the disassembler follows (jumps, gosubs, forks, CALL
+ * branch params, jump/gosub tables), strings are referenced through CALL string params, and unreferenced data is
+ * appended at the end. Uses {@link SyntheticMeta} for CALLs.
+ */
+public class ScriptGenerator {
+  private static final Meta META = SyntheticMeta.create();
+  private static final OpType[] VALUE_OPS = {OpType.MOV, OpType.ADD, OpType.SUB, OpType.AND, OpType.OR, OpType.XOR, OpType.MUL, OpType.RAND, OpType.SIN_12};
+  private static final OpType[] OPERAND_OPS = {OpType.INCR, OpType.DECR, OpType.NEG, OpType.ABS};
+  private static final String[] OPERATORS = {"<=", "<", "==", "!=", ">", ">=", "&", "!&"};
+  /** Space, punctuation that survives the source format, digits and letters */
+  private static final int[] STRING_CHARS;
+
+  static {
+    final List<Integer> chars = new ArrayList<>(List.of(0x00, 0x01, 0x02, 0x05, 0x06));
+    for(int chr = 0x15; chr <= 0x52; chr++) {
+      chars.add(chr);
+    }
+
+    STRING_CHARS = chars.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private final GeneratorOptions options;
+  private final Random random;
+  private final int targetWords;
+  private final int estimatedOps;
+
+  private final List<Item> items = new ArrayList<>();
+  private final Deque<Runnable> pending = new ArrayDeque<>();
+  private final List<String> subs = new ArrayList<>();
+  private final List<String> reentries = new ArrayList<>();
+  private final List<String> stringTables = new ArrayList<>();
+  private final List<String> strings = new ArrayList<>();
+  private int words;
+  private int labelCount;
+  /** Set once the last entrypoint starts, which keeps chaining routines until the target size is reached */
+  private boolean growing;
+  private int jumpTablesLeft;
+  private int gosubTablesLeft;
+  private int stringTablesLeft;
+
+  public ScriptGenerator(final GeneratorOptions options) {
+    this.options = options;
+    this.random = new Random(options.seed);
+    this.targetWords = Math.max(1, options.targetBytes / 0x4);
+    this.estimatedOps = Math.max(1, this.targetWords / 4);
+    this.jumpTablesLeft = options.jumpTables;
+    this.gosubTablesLeft = options.gosubTables;
+    this.stringTablesLeft = options.stringTables;
+  }
+
+  public static GeneratedScript generate(final GeneratorOptions options) {
+    return new ScriptGenerator(options).generate();
+  }
+
+  public GeneratedScript generate() {
+    final int entrypointCount = Math.clamp(this.options.entrypoints, 1, 0x20);
+
+    final List<String> entrypoints = new ArrayList<>();
+    for(int i = 0; i < entrypointCount; i++) {
+      final String label = this.label("ENTRY");
+      entrypoints.add(label);
+      this.add(new EntrypointItem(label));
+    }
+
+    // An op header that happens to look like a valid address would be read as another entrypoint, yield's header is 0.
+    // The last entrypoint is generated once everything else is done so that it can place anything still required.
+    for(int i = 0; i < entrypointCount; i++) {
+      if(i == entrypointCount - 1) {
+        this.drainPending();
+        this.growing = true;
+      }
+
+      this.routine(entrypoints.get(i), OpType.REWIND, i == 0);
+    }
+
+    this.drainPending();
+
+    for(int i = 0; i < this.options.dataWords; i++) {
+      this.add(new DataItem(this.random.nextInt()));
+    }
+
+    return this.assemble();
+  }
+
+  private void drainPending() {
+    while(!this.pending.isEmpty()) {
+      this.pending.removeFirst().run();
+    }
+  }
+
+  private void routine(final String label, final OpType terminator, final boolean startWithYield) {
+    final List<OpItem> segment = new ArrayList<>();
+    final int length = Math.max(1, this.options.routineLength / 2 + this.random.nextInt(this.options.routineLength + 1));
+    String segmentLabel = label;
+
+    if(startWithYield) {
+      segment.add(this.op(OpType.YIELD, 0, null));
+    }
+
+    for(int i = 0; i < length; i++) {
+      if(this.jumpTablesLeft > 0 && this.chance((double)this.options.jumpTables / this.estimatedOps)) {
+        segmentLabel = this.jumpTable(segment, segmentLabel);
+        continue;
+      }
+
+      segment.add(this.nextOp());
+    }
+
+    // Keep the script growing (and make sure every requested table exists) by chaining into another routine
+    if(this.growing && this.words + this.estimateWords(segment) < this.targetWords || this.jumpTablesLeft > 0 || this.gosubTablesLeft > 0 || this.stringTablesLeft > 0) {
+      final String next = this.label("CONT");
+      segment.add(this.op(OpType.JMP, 0, null, this.inline(next)));
+      this.pending.add(() -> this.continuation(next, terminator));
+    } else {
+      segment.add(this.op(terminator, 0, null));
+    }
+
+    this.flushSegment(segment, segmentLabel);
+  }
+
+  /** Places anything the requested counts still need, then carries on into a normal routine */
+  private void continuation(final String label, final OpType terminator) {
+    final List<OpItem> segment = new ArrayList<>();
+    String segmentLabel = label;
+
+    while(this.stringTablesLeft > 0) {
+      segment.add(this.call(SyntheticMeta.SHOW_TEXT_TABLE, this.stringTableParam(this.stringTable())));
+    }
+
+    while(this.gosubTablesLeft > 0) {
+      segment.add(this.gosubTable());
+    }
+
+    while(this.jumpTablesLeft > 0) {
+      segmentLabel = this.jumpTable(segment, segmentLabel);
+    }
+
+    // Falls through into the routine
+    this.flushSegment(segment, segmentLabel);
+    this.routine(segment.isEmpty() ? segmentLabel : null, terminator, false);
+  }
+
+  private void subroutine(final String label, final OpType terminator) {
+    final List<OpItem> segment = new ArrayList<>();
+    final int length = Math.max(1, this.options.routineLength / 4 + this.random.nextInt(this.options.routineLength / 2 + 1));
+
+    for(int i = 0; i < length; i++) {
+      segment.add(this.nextOp());
+    }
+
+    segment.add(this.op(terminator, 0, null));
+    this.flushSegment(segment, label);
+  }
+
+  /** Emits and clears the ops of a segment, pointing each forward jump at a later op in the same segment */
+  private void flushSegment(final List<OpItem> segment, final String label) {
+    if(segment.isEmpty()) {
+      return;
+    }
+
+    for(int i = 0; i < segment.size(); i++) {
+      final OpItem op = segment.get(i);
+
+      if(op.forwardJump != null) {
+        segment.get(i + 1 + this.random.nextInt(segment.size() - i - 1)).labels.add(op.forwardJump);
+      }
+    }
+
+    if(label != null) {
+      segment.getFirst().labels.addFirst(label);
+    }
+
+    for(final OpItem op : segment) {
+      this.add(op);
+    }
+
+    segment.clear();
+  }
+
+  /** Ends the current segment with a jump table and returns the label the cases rejoin at, which labels the next segment */
+  private String jumpTable(final List<OpItem> segment, final String label) {
+    this.jumpTablesLeft--;
+
+    final String table = this.label("JMPTABLE");
+    final String continuation = this.label("JOIN");
+    final int caseCount = 2 + this.random.nextInt(6);
+
+    segment.add(this.op(OpType.JMP_TABLE, 0, null, this.valueParam(), this.inline(table)));
+    this.flushSegment(segment, label);
+
+    final List<String> cases = new ArrayList<>();
+    for(int i = 0; i < caseCount; i++) {
+      cases.add(this.label("CASE"));
+    }
+
+    this.relTable(table, cases);
+
+    for(final String dest : cases) {
+      final List<OpItem> body = new ArrayList<>();
+      final int length = 1 + this.random.nextInt(3);
+
+      for(int i = 0; i < length; i++) {
+        body.add(this.plainOp());
+      }
+
+      body.add(this.op(OpType.JMP, 0, null, this.inline(continuation)));
+      this.flushSegment(body, dest);
+    }
+
+    return continuation;
+  }
+
+  private OpItem gosubTable() {
+    this.gosubTablesLeft--;
+
+    final String table = this.label("SUBTABLE");
+
+    this.pending.add(() -> {
+      final int entryCount = 2 + this.random.nextInt(6);
+      final List<String> entries = new ArrayList<>();
+
+      for(int i = 0; i < entryCount; i++) {
+        entries.add(this.label("TABLESUB"));
+      }
+
+      this.relTable(table, entries);
+
+      for(final String dest : entries) {
+        this.subroutine(dest, OpType.RETURN);
+      }
+    });
+
+    return this.op(OpType.GOSUB_TABLE, 0, null, this.valueParam(), this.inline(table));
+  }
+
+  private void placeStringTable(final String table) {
+    final int count = 2 + this.random.nextInt(5);
+    final List<String> entries = new ArrayList<>();
+
+    for(int i = 0; i < count; i++) {
+      entries.add(this.label("STR"));
+    }
+
+    this.relTable(table, entries);
+
+    for(final String dest : entries) {
+      this.add(new StringItem(this.randomString())).labels.add(dest);
+    }
+  }
+
+  private void relTable(final String table, final List<String> destinations) {
+    for(int i = 0; i < destinations.size(); i++) {
+      final RelItem rel = new RelItem(table, destinations.get(i));
+
+      if(i == 0) {
+        rel.labels.add(table);
+      }
+
+      this.add(rel);
+    }
+  }
+
+  private OpItem nextOp() {
+    if(this.chance(this.options.branchDensity)) {
+      final int kind = this.random.nextInt(10);
+
+      if(kind < 5) {
+        final String target = this.label("SKIP");
+        final int operator = this.random.nextInt(OPERATORS.length);
+        final OpItem op = this.op(OpType.JMP_CMP, operator, OPERATORS[operator], this.valueParam(), this.valueParam(), this.inline(target));
+        op.forwardJump = target;
+        return op;
+      }
+
+      if(kind < 8) {
+        return this.op(OpType.GOSUB, 0, null, this.inline(this.sub()));
+      }
+
+      if(this.gosubTablesLeft > 0 && kind == 8) {
+        return this.gosubTable();
+      }
+
+      return this.op(OpType.FORK, 0, null, this.valueParam(), this.inline(this.reentry()), this.valueParam());
+    }
+
+    if(this.chance(this.options.callRatio)) {
+      return this.randomCall();
+    }
+
+    return this.plainOp();
+  }
+
+  private OpItem randomCall() {
+    return switch(this.random.nextInt(9)) {
+      case SyntheticMeta.NOP -> this.call(SyntheticMeta.NOP);
+      case SyntheticMeta.SET_VALUE -> this.call(SyntheticMeta.SET_VALUE, this.valueParam());
+      case SyntheticMeta.SET_COLOUR -> {
+        final int colour = this.random.nextInt(SyntheticMeta.COLOURS.length);
+        yield this.call(SyntheticMeta.SET_COLOUR, new ParamSpec(new int[] {colour}, null, SyntheticMeta.COLOURS[colour]));
+      }
+      case SyntheticMeta.RUN_SUB -> this.call(SyntheticMeta.RUN_SUB, this.inline(this.sub()));
+      case SyntheticMeta.SHOW_TEXT -> this.call(SyntheticMeta.SHOW_TEXT, this.inline(this.string()));
+      case SyntheticMeta.SHOW_TEXT_TABLE -> {
+        yield this.call(SyntheticMeta.SHOW_TEXT_TABLE, this.stringTableParam(this.stringTable()));
+      }
+      case SyntheticMeta.GET_VALUE -> this.call(SyntheticMeta.GET_VALUE, this.destParam());
+      case SyntheticMeta.SET_PAIR -> this.call(SyntheticMeta.SET_PAIR, this.valueParam(), this.valueParam());
+      default -> this.call(SyntheticMeta.FORK_REENTRY, this.inline(this.reentry()));
+    };
+  }
+
+  private OpItem plainOp() {
+    final int kind = this.random.nextInt(10);
+
+    if(kind < 6) {
+      return this.op(VALUE_OPS[this.random.nextInt(VALUE_OPS.length)], 0, null, this.valueParam(), this.destParam());
+    }
+
+    if(kind < 9) {
+      return this.op(OPERAND_OPS[this.random.nextInt(OPERAND_OPS.length)], 0, null, this.destParam());
+    }
+
+    return this.op(OpType.WAIT, 0, null, this.valueParam());
+  }
+
+  /** Picks a recent subroutine, or creates a new one while the script is still under its target size */
+  private String sub() {
+    if(this.subs.isEmpty() || this.words < this.targetWords && this.random.nextBoolean()) {
+      final String label = this.label("SUB");
+      this.subs.add(label);
+      this.pending.add(() -> this.subroutine(label, OpType.RETURN));
+      return label;
+    }
+
+    return this.recent(this.subs);
+  }
+
+  private String reentry() {
+    if(this.reentries.isEmpty() || this.words < this.targetWords && this.random.nextBoolean()) {
+      final String label = this.label("REENTRY");
+      this.reentries.add(label);
+      this.pending.add(() -> this.subroutine(label, OpType.DEALLOCATE));
+      return label;
+    }
+
+    return this.recent(this.reentries);
+  }
+
+  private String string() {
+    if(this.strings.isEmpty() || this.random.nextBoolean()) {
+      final String label = this.label("TEXT");
+      this.strings.add(label);
+      this.pending.add(() -> this.add(new StringItem(this.randomString())).labels.add(label));
+      return label;
+    }
+
+    return this.recent(this.strings);
+  }
+
+  private String stringTable() {
+    if(this.stringTables.isEmpty() || this.stringTablesLeft > 0 || this.words < this.targetWords && this.random.nextBoolean()) {
+      this.stringTablesLeft--;
+      final String label = this.label("STRTABLE");
+      this.stringTables.add(label);
+      this.pending.add(() -> this.placeStringTable(label));
+      return label;
+    }
+
+    return this.recent(this.stringTables);
+  }
+
+  /**
+   * Inline params only reach 0x8000 words either way, so references stick to recently created targets, which are
+   * placed shortly after
+   */
+  private String recent(final List<String> labels) {
+    return labels.get(labels.size() - 1 - this.random.nextInt(Math.min(labels.size(), 8)));
+  }
+
+  private OpItem call(final int method, final ParamSpec... params) {
+    return this.op(OpType.CALL, method, null, params);
+  }
+
+  private OpItem op(final OpType type, final int headerParam, final String headerText, final ParamSpec... params) {
+    return new OpItem(type, headerParam, headerText, params);
+  }
+
+  private ParamSpec valueParam() {
+    return switch(this.random.nextInt(6)) {
+      case 0, 1 -> {
+        final int value = this.random.nextInt(0x1000);
+        yield new ParamSpec(new int[] {value}, null, "0x%x".formatted(value));
+      }
+      case 2 -> {
+        final int value = this.random.nextInt() | 0x100_0000;
+        yield new ParamSpec(new int[] {ParameterType.NEXT_IMMEDIATE.opcode << 24, value}, null, "0x%x".formatted(value));
+      }
+      case 3 -> {
+        final int var = this.random.nextInt(0x100);
+        final int storage = this.random.nextInt(0x20);
+        yield new ParamSpec(new int[] {ParameterType.GAMEVAR_ARRAY_1.opcode << 24 | storage << 8 | var}, null, "var[%d][stor[%d]]".formatted(var, storage));
+      }
+      default -> this.destParam();
+    };
+  }
+
+  private ParamSpec destParam() {
+    return switch(this.random.nextInt(4)) {
+      case 0, 1 -> {
+        final int storage = this.random.nextInt(0x20);
+        yield new ParamSpec(new int[] {ParameterType.STORAGE.opcode << 24 | storage}, null, "stor[%d]".formatted(storage));
+      }
+      case 2 -> {
+        final int var = this.random.nextInt(0x100);
+        yield new ParamSpec(new int[] {ParameterType.GAMEVAR_1.opcode << 24 | var}, null, "var[%d]".formatted(var));
+      }
+      default -> {
+        final int reg = this.random.nextInt(0x40);
+        yield new ParamSpec(new int[] {ParameterType.REG.opcode << 24 | reg}, null, "reg[%d]".formatted(reg));
+      }
+    };
+  }
+
+  private ParamSpec inline(final String label) {
+    return new ParamSpec(new int[] {ParameterType.INLINE_1.opcode << 24}, label, "inl[:%s]".formatted(label));
+  }
+
+  private ParamSpec stringTableParam(final String table) {
+    final int storage = this.random.nextInt(0x20);
+    return new ParamSpec(new int[] {ParameterType.INLINE_TABLE_1.opcode << 24 | storage << 16}, table, "inl[:%1$s[:%1$s[stor[%2$d]]]]".formatted(table, storage));
+  }
+
+  private int[] randomString() {
+    final int[] chars = new int[1 + this.random.nextInt(24)];
+
+    for(int i = 0; i < chars.length; i++) {
+      // The lexer trims lines, so spaces can't be at either end
+      final int first = i == 0 || i == chars.length - 1 ? 1 : 0;
+      chars[i] = STRING_CHARS[first + this.random.nextInt(STRING_CHARS.length - first)];
+    }
+
+    return chars;
+  }
+
+  private int estimateWords(final List<OpItem> ops) {
+    int total = 0;
+    for(final OpItem op : ops) {
+      total += op.size();
+    }
+
+    return total;
+  }
+
+  private boolean chance(final double probability) {
+    return this.random.nextDouble() < probability;
+  }
+
+  private String label(final String prefix) {
+    return prefix + '_' + this.labelCount++;
+  }
+
+  private Item add(final Item item) {
+    this.items.add(item);
+    this.words += item.size();
+    return item;
+  }
+
+  private GeneratedScript assemble() {
+    final Map<String, Integer> addresses = new HashMap<>();
+    int address = 0;
+
+    for(final Item item : this.items) {
+      for(final String label : item.labels) {
+        addresses.put(label, address);
+      }
+
+      address += item.size() * 0x4;
+    }
+
+    final int[] out = new int[address / 0x4];
+    final StringBuilder source = new StringBuilder();
+    address = 0;
+
+    for(final Item item : this.items) {
+      for(final String label : item.labels) {
+        source.append(label).append(":\n");
+      }
+
+      item.assemble(out, address, addresses);
+      item.source(source);
+      source.append('\n');
+      address += item.size() * 0x4;
+    }
+
+    return new GeneratedScript(out, source.toString());
+  }
+
+  private abstract static class Item {
+    final List<String> labels = new ArrayList<>();
+
+    abstract int size();
+
+    abstract void assemble(final int[] out, final int address, final Map<String, Integer> addresses);
+
+    abstract void source(final StringBuilder out);
+
+    static int resolve(final Map<String, Integer> addresses, final String label) {
+      final Integer address = addresses.get(label);
+
+      if(address == null) {
+        throw new IllegalStateException("Generator referenced undefined label " + label);
+      }
+
+      return address;
+    }
+  }
+
+  private static class EntrypointItem extends Item {
+    private final String destination;
+
+    EntrypointItem(final String destination) {
+      this.destination = destination;
+    }
+
+    @Override
+    int size() {
+      return 1;
+    }
+
+    @Override
+    void assemble(final int[] out, final int address, final Map<String, Integer> addresses) {
+      out[address / 0x4] = resolve(addresses, this.destination);
+    }
+
+    @Override
+    void source(final StringBuilder out) {
+      out.append("entrypoint :").append(this.destination);
+    }
+  }
+
+  private static class RelItem extends Item {
+    private final String table;
+    private final String destination;
+
+    RelItem(final String table, final String destination) {
+      this.table = table;
+      this.destination = destination;
+    }
+
+    @Override
+    int size() {
+      return 1;
+    }
+
+    @Override
+    void assemble(final int[] out, final int address, final Map<String, Integer> addresses) {
+      out[address / 0x4] = (resolve(addresses, this.destination) - resolve(addresses, this.table)) / 0x4;
+    }
+
+    @Override
+    void source(final StringBuilder out) {
+      out.append("rel :").append(this.destination);
+    }
+  }
+
+  private static class DataItem extends Item {
+    private final int value;
+
+    DataItem(final int value) {
+      this.value = value;
+    }
+
+    @Override
+    int size() {
+      return 1;
+    }
+
+    @Override
+    void assemble(final int[] out, final int address, final Map<String, Integer> addresses) {
+      out[address / 0x4] = this.value;
+    }
+
+    @Override
+    void source(final StringBuilder out) {
+      out.append("data 0x").append(Integer.toHexString(this.value));
+    }
+  }
+
+  private static class StringItem extends Item {
+    /** Without the terminator */
+    private final int[] chars;
+
+    StringItem(final int[] chars) {
+      this.chars = chars;
+    }
+
+    @Override
+    int size() {
+      return (this.chars.length + 2) / 2;
+    }
+
+    @Override
+    void assemble(final int[] out, final int address, final Map<String, Integer> addresses) {
+      for(int i = 0; i <= this.chars.length; i++) {
+        final int chr = i < this.chars.length ? this.chars[i] : 0xa0ff;
+        out[address / 0x4 + i / 2] |= chr << i % 2 * 16;
+      }
+    }
+
+    @Override
+    void source(final StringBuilder out) {
+      out.append("data str[").append(new LodString(0, this.chars)).append(']');
+    }
+  }
+
+  private static class OpItem extends Item {
+    private final OpType type;
+    private final int headerParam;
+    private final String headerText;
+    private final ParamSpec[] params;
+    /** Label of the forward jump this op owns, if any */
+    private String forwardJump;
+
+    OpItem(final OpType type, final int headerParam, final String headerText, final ParamSpec[] params) {
+      this.type = type;
+      this.headerParam = headerParam;
+      this.headerText = headerText;
+      this.params = params;
+    }
+
+    @Override
+    int size() {
+      int size = 1;
+      for(final ParamSpec param : this.params) {
+        size += param.raw.length;
+      }
+
+      return size;
+    }
+
+    @Override
+    void assemble(final int[] out, final int address, final Map<String, Integer> addresses) {
+      int index = address / 0x4;
+      out[index++] = this.type.opcode | this.params.length << 8 | this.headerParam << 16;
+
+      for(final ParamSpec param : this.params) {
+        for(int i = 0; i < param.raw.length; i++) {
+          out[index + i] = param.raw[i];
+        }
+
+        if(param.label != null) {
+          out[index] |= (resolve(addresses, param.label) - address) / 0x4 & 0xffff;
+        }
+
+        index += param.raw.length;
+      }
+    }
+
+    @Override
+    void source(final StringBuilder out) {
+      out.append(this.type.name);
+
+      if(this.type == OpType.CALL) {
+        out.append(' ').append(META.methods[this.headerParam].name);
+      } else if(this.headerText != null) {
+        out.append(' ').append(this.headerText);
+      }
+
+      for(int i = 0; i < this.params.length; i++) {
+        out.append(i == 0 && this.type != OpType.CALL && this.headerText == null ? " " : ", ").append(this.params[i].text);
+      }
+    }
+  }
+
+  private static class ParamSpec {
+    /** Raw words, minus the relative offset of {@link #label} which is filled in during assembly */
+    private final int[] raw;
+    private final String label;
+    private final String text;
+
+    ParamSpec(final int[] raw, final String label, final String text) {
+      this.raw = raw;
+      this.label = label;
+      this.text = text;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package org.legendofdragoon.scripting.generator;
+
+import org.legendofdragoon.scripting.meta.Meta;
+import org.legendofdragoon.scripting.meta.MetaManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** A small, fixed meta covering each kind of CALL parameter the disassembler treats specially */
+public final class SyntheticMeta {
+  private SyntheticMeta() { }
+
+  /** The version the meta is written under so the other commands can load it with {@code -v synthetic} */
+  public static final String VERSION = "synthetic";
+
+  public static final int NOP = 0;
+  public static final int SET_VALUE = 1;
+  public static final int SET_COLOUR = 2;
+  public static final int RUN_SUB = 3;
+  public static final int SHOW_TEXT = 4;
+  public static final int SHOW_TEXT_TABLE = 5;
+  public static final int GET_VALUE = 6;
+  public static final int SET_PAIR = 7;
+  public static final int FORK_REENTRY = 8;
+
+  public static final String[] COLOURS = {"RED", "GREEN", "BLUE", "WHITE"};
+
+  public static Meta create() {
+    final Meta.ScriptMethod[] methods = {
+      new Meta.ScriptMethod("synth::nop", "", new Meta.ScriptParam[0]),
+      new Meta.ScriptMethod("synth::setValue", "", new Meta.ScriptParam[] {param("in", "int", "value", "none")}),
+      new Meta.ScriptMethod("synth::setColour", "", new Meta.ScriptParam[] {param("in", "Colour", "colour", "none")}),
+      new Meta.ScriptMethod("synth::runSub", "", new Meta.ScriptParam[] {param("in", "int", "addr", "gosub")}),
+      new Meta.ScriptMethod("synth::showText", "", new Meta.ScriptParam[] {param("in", "string", "text", "none")}),
+      new Meta.ScriptMethod("synth::showTextTable", "", new Meta.ScriptParam[] {param("in", "string", "table", "none")}),
+      new Meta.ScriptMethod("synth::getValue", "", new Meta.ScriptParam[] {param("out", "int", "value", "none")}),
+      new Meta.ScriptMethod("synth::setPair", "", new Meta.ScriptParam[] {param("in", "int", "a", "none"), param("in", "int", "b", "none")}),
+      new Meta.ScriptMethod("synth::forkReentry", "", new Meta.ScriptParam[] {param("in", "int", "addr", "reentry")}),
+    };
+
+    return new Meta(methods, Map.of("Colour", COLOURS));
+  }
+
+  /** Writes the meta in the same CSV layout the meta server uses */
+  public static void write(final Path dir) throws IOException {
+    final Meta meta = create();
+    final List<String> descriptions = new ArrayList<>();
+    final List<String> params = new ArrayList<>();
+
+    for(final Meta.ScriptMethod method : meta.methods) {
+      descriptions.add(method.name + ',' + method.description);
+
+      for(final Meta.ScriptParam param : method.params) {
+        params.add(String.join(",", method.name, param.direction, param.type, param.name, param.description, param.branch));
+      }
+    }
+
+    Files.createDirectories(dir);
+    Files.write(dir.resolve("descriptions.csv"), descriptions);
+    Files.write(dir.resolve("params.csv"), params);
+    Files.write(dir.resolve("enums.csv"), List.of("Colour"));
+    Files.write(dir.resolve("Colour.csv"), List.of(COLOURS));
+    Files.write(dir.resolve(MetaManager.COMPLETE_MARKER), new byte[0]);
+  }
+
+  private static Meta.ScriptParam param(final String direction, final String type, final String name, final String branch) {
+    return new Meta.ScriptParam(direction, type, name, "", branch);
+  }
+}
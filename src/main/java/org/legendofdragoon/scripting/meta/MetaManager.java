@@ -10,18 +10,26 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MetaManager {
+  /** Written to a version's cache directory once all of its files are in place */
+  public static final String COMPLETE_MARKER = ".complete";
+
   private final URI baseUri;
   private final Path cacheDir;
+  private final Map<String, Meta> loaded = new ConcurrentHashMap<>();
+  private final Map<String, Object> fetchLocks = new ConcurrentHashMap<>();
   private String[] versions;
 
   public MetaManager(final URI baseUri, final Path cacheDir) {
@@ -37,7 +45,36 @@ public class MetaManager {
     return this.versions;
   }
 
+  /**
+   * Returns the already-loaded meta for this version if there is one, otherwise loads and remembers it. That includes
+   * snapshot, so a long-running process keeps the snapshot it first loaded until {@link #clearLoaded} is called.
+   */
   public Meta loadMeta(final String version) throws IOException, CsvException, NoSuchVersionException {
+    final Meta existing = this.loaded.get(version);
+    if(existing != null) {
+      return existing;
+    }
+
+    // Only one thread fetches each version, the rest wait for its result
+    synchronized(this.fetchLocks.computeIfAbsent(version, key -> new Object())) {
+      final Meta fetched = this.loaded.get(version);
+      if(fetched != null) {
+        return fetched;
+      }
+
+      final Meta meta = this.fetchMeta(version);
+      this.loaded.put(version, meta);
+      return meta;
+    }
+  }
+
+  /** Forgets all loaded metas so the next load re-reads them (e.g. to pick up a new snapshot) */
+  public void clearLoaded() {
+    this.loaded.clear();
+    this.versions = null;
+  }
+
+  private Meta fetchMeta(final String version) throws IOException, CsvException, NoSuchVersionException {
     // Snapshot always loads from the server
     if("snapshot".equals(version)) {
       return this.loadMeta(this.baseUri.resolve(version + '/'), null);
@@ -45,18 +82,43 @@ public class MetaManager {
 
     // Load cache
     final Path versionDir = this.cacheDir.resolve(version);
-    if(Files.exists(versionDir)) {
+    if(Files.exists(versionDir.resolve(COMPLETE_MARKER))) {
       return this.loadMeta(versionDir);
     }
 
-    // Pull from server
-    final List<String> versions = Arrays.asList(this.getVersions());
+    // Other processes sharing the cache directory wait here while one of them downloads
+    Files.createDirectories(this.cacheDir);
+    try(final FileChannel lockChannel = FileChannel.open(this.cacheDir.resolve(version + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      lockChannel.lock(); // Released when the channel closes
+
+      if(Files.exists(versionDir.resolve(COMPLETE_MARKER))) {
+        return this.loadMeta(versionDir);
+      }
 
-    if(!versions.contains(version)) {
-      throw new NoSuchVersionException("Invalid version: " + version);
+      // Pull from server
+      final List<String> versions = Arrays.asList(this.getVersions());
+
+      if(!versions.contains(version)) {
+        throw new NoSuchVersionException("Invalid version: " + version);
+      }
+
+      final Meta meta = this.loadMeta(this.baseUri.resolve(version + '/'), versionDir);
+      writeAtomically(versionDir.resolve(COMPLETE_MARKER), new byte[0]);
+      return meta;
     }
+  }
 
-    return this.loadMeta(this.baseUri.resolve(version + '/'), this.cacheDir.resolve(version));
+  /** Writes to a temp file next to the destination and moves it into place so readers never see a partial file */
+  private static void writeAtomically(final Path file, final byte[] data) throws IOException {
+    Files.createDirectories(file.getParent());
+    final Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+    try {
+      Files.write(temp, data);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
   }
 
   private Meta loadMeta(final Path basePath) throws IOException, CsvException {
@@ -139,8 +201,7 @@ public class MetaManager {
     final InputStream stream = con.getInputStream();
     final byte[] data = stream.readAllBytes();
     if(cache != null) {
-      Files.createDirectories(cache.getParent());
-      Files.write(cache, data, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      writeAtomically(cache, data);
     }
 
     final List<String[]> csv = this.loadCsv(new ByteArrayInputStream(data));
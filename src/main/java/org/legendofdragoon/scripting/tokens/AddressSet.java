@@ -0,0 +1,97 @@
+package org.legendofdragoon.scripting.tokens;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of addresses within a script, stored as one bit per word. Unaligned or out-of-range addresses (from malformed
+ * input, or anything past a sparse script's index) are kept in a fallback set so they behave the same as any other
+ * address.
+ */
+public class AddressSet {
+  private final long[] words;
+  private final int length;
+  private Set<Integer> outliers;
+  private int size;
+
+  /** @param length How many words to index, the script length unless it's sparse, see {@link Script#Script(int, int)} */
+  public AddressSet(final int length) {
+    this.words = new long[(length + 63) >>> 6];
+    this.length = length;
+  }
+
+  /** @return true if the address was not already present */
+  public boolean add(final int address) {
+    if(!this.isWordAddress(address)) {
+      if(this.outliers == null) {
+        this.outliers = new HashSet<>();
+      }
+
+      if(this.outliers.add(address)) {
+        this.size++;
+        return true;
+      }
+
+      return false;
+    }
+
+    final int index = address >>> 2;
+    final long bit = 1L << index;
+    final long old = this.words[index >>> 6];
+
+    if((old & bit) != 0) {
+      return false;
+    }
+
+    this.words[index >>> 6] = old | bit;
+    this.size++;
+    return true;
+  }
+
+  public boolean contains(final int address) {
+    if(!this.isWordAddress(address)) {
+      return this.outliers != null && this.outliers.contains(address);
+    }
+
+    final int index = address >>> 2;
+    return (this.words[index >>> 6] & 1L << index) != 0;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /** @return every address in ascending order */
+  public int[] toArray() {
+    final int[] out = new int[this.size];
+    int count = 0;
+
+    for(int word = 0; word < this.words.length; word++) {
+      long bits = this.words[word];
+
+      while(bits != 0) {
+        out[count++] = (word << 6 | Long.numberOfTrailingZeros(bits)) << 2;
+        bits &= bits - 1;
+      }
+    }
+
+    if(this.outliers != null) {
+      for(final int address : this.outliers) {
+        out[count++] = address;
+      }
+
+      Arrays.sort(out);
+    }
+
+    return out;
+  }
+
+  private boolean isWordAddress(final int address) {
+    return (address & 0x3) == 0 && address >= 0 && address >>> 2 < this.length;
+  }
+}
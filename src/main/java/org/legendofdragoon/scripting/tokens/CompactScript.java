@@ -0,0 +1,431 @@
+package org.legendofdragoon.scripting.tokens;
+
+import org.legendofdragoon.scripting.OpType;
+import org.legendofdragoon.scripting.ParameterType;
+import org.legendofdragoon.scripting.StringInfo;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * A {@link Script} packed into parallel arrays, for holding many scripts in memory at once. Each word has a kind and a
+ * raw word; labels, label references, strings, pointer tables and the address sets live in side tables sorted by word
+ * index. Use {@link #toScript} to get a regular script back for translating or compiling.
+ *
+ * <p>Params keep their raw words and labels but not their resolved values, which only matter while disassembling. The
+ * cross references are rebuilt from the labels that entrypoints, pointer tables and params refer to.</p>
+ */
+public class CompactScript {
+  public static final int EMPTY = 0;
+  public static final int OP = 1;
+  public static final int PARAM = 2;
+  public static final int DATA = 3;
+  public static final int STRING = 4;
+  public static final int POINTER_TABLE = 5;
+  public static final int ENTRYPOINT = 6;
+
+  /** Set on a word that belongs to the same token as the word before it */
+  private static final int CONTINUES = 0x80;
+  private static final int KIND_MASK = 0x7f;
+
+  private final byte[] kinds;
+  /** The raw word, except for entrypoints (a name id) and pointer tables (a table id) */
+  private final int[] words;
+
+  private final String[] names;
+  /** Labelled addresses in ascending order, each with a name id, or -1 where every label was removed */
+  private final int[] labelAddresses;
+  private final int[] labelNames;
+  /** Words where a param with a label starts, and the label's name id */
+  private final int[] paramLabelWords;
+  private final int[] paramLabelNames;
+  /** Pointer table n's label name ids are at {@code [tableStarts[n], tableStarts[n + 1])} */
+  private final int[] tableStarts;
+  private final int[] tableNames;
+  /** Words where a string starts, its address, and its chars at {@code [stringStarts[n], stringStarts[n + 1])} */
+  private final int[] stringWords;
+  private final int[] stringAddresses;
+  private final int[] stringStarts;
+  private final char[] stringChars;
+  /** Ops whose params don't line up with the words after them (only in malformed input), kept as they are */
+  private final Map<Integer, Param[]> irregularOps;
+
+  private final int[] entrypoints;
+  private final int[] branches;
+  private final int[] subs;
+  private final int[] subTables;
+  private final int[] reentries;
+  private final int[] jumpTableDests;
+  /** Start and max length pairs of {@link Script#strings} */
+  private final int[] strings;
+
+  public CompactScript(final Script script) {
+    final Entry[] entries = script.entries;
+    this.kinds = new byte[entries.length];
+    this.words = new int[entries.length];
+
+    final Names names = new Names();
+    final IntList paramLabelWords = new IntList();
+    final IntList paramLabelNames = new IntList();
+    final IntList tableStarts = new IntList();
+    final IntList tableNames = new IntList();
+    final IntList stringWords = new IntList();
+    final IntList stringAddresses = new IntList();
+    final IntList stringStarts = new IntList();
+    final StringBuilder stringChars = new StringBuilder();
+    final Map<Integer, Param[]> irregularOps = new HashMap<>();
+
+    int start = 0;
+    for(int i = 0; i < entries.length; i++) {
+      final Entry entry = entries[i];
+
+      if(entry == null) {
+        continue;
+      }
+
+      // Data words are regrouped into runs when unpacking, so they never continue
+      final boolean continues = i != 0 && entries[i - 1] == entry && !(entry instanceof DataRun);
+
+      if(!continues) {
+        start = i;
+      }
+
+      final int kind;
+      if(entry instanceof final Op op) {
+        kind = OP;
+        this.words[i] = op.type.opcode | op.params.length << 8 | op.headerParam << 16;
+
+        if(!continues && !isRegular(entries, i, op)) {
+          irregularOps.put(i, op.params.clone());
+        }
+      } else if(entry instanceof final Param param) {
+        kind = PARAM;
+        this.words[i] = i - start < param.rawValues.length ? param.rawValues[i - start] : 0;
+
+        if(!continues && param.label != null) {
+          paramLabelWords.add(i);
+          paramLabelNames.add(names.id(param.label));
+        }
+      } else if(entry instanceof final Data data) {
+        kind = DATA;
+        this.words[i] = data.value;
+      } else if(entry instanceof final DataRun run) {
+        kind = DATA;
+        this.words[i] = run.wordAt(i * 0x4);
+      } else if(entry instanceof final LodString string) {
+        kind = STRING;
+
+        final int charIndex = (i - start) * 2;
+        for(int n = 0; n < 2 && charIndex + n < string.chars.length; n++) {
+          this.words[i] |= (string.chars[charIndex + n] & 0xffff) << n * 16;
+        }
+
+        if(!continues) {
+          stringWords.add(i);
+          stringAddresses.add(string.address);
+          stringStarts.add(stringChars.length());
+
+          for(final int chr : string.chars) {
+            stringChars.append((char)chr);
+          }
+        }
+      } else if(entry instanceof final PointerTable table) {
+        kind = POINTER_TABLE;
+
+        if(!continues) {
+          this.words[i] = tableStarts.size();
+          tableStarts.add(tableNames.size());
+
+          for(final String label : table.labels) {
+            tableNames.add(names.id(label));
+          }
+        } else {
+          this.words[i] = this.words[i - 1];
+        }
+      } else if(entry instanceof final Entrypoint entrypoint) {
+        kind = ENTRYPOINT;
+        this.words[i] = names.id(entrypoint.destination);
+      } else {
+        throw new IllegalArgumentException("Unknown entry " + entry.getClass().getSimpleName() + " at index " + i);
+      }
+
+      this.kinds[i] = (byte)(continues ? kind | CONTINUES : kind);
+    }
+
+    tableStarts.add(tableNames.size());
+    stringStarts.add(stringChars.length());
+
+    final int[] labelAddresses = script.labels.addresses();
+    final IntList labelAddressList = new IntList();
+    final IntList labelNames = new IntList();
+    for(final int address : labelAddresses) {
+      final List<String> labels = script.labels.get(address);
+
+      if(labels.isEmpty()) {
+        labelAddressList.add(address);
+        labelNames.add(-1);
+      }
+
+      for(final String label : labels) {
+        labelAddressList.add(address);
+        labelNames.add(names.id(label));
+      }
+    }
+
+    final int[] strings = new int[script.strings.size() * 2];
+    int stringIndex = 0;
+    for(final StringInfo string : script.strings) {
+      strings[stringIndex++] = string.start;
+      strings[stringIndex++] = string.maxLength;
+    }
+
+    this.names = names.list.toArray(String[]::new);
+    this.labelAddresses = labelAddressList.toArray();
+    this.labelNames = labelNames.toArray();
+    this.paramLabelWords = paramLabelWords.toArray();
+    this.paramLabelNames = paramLabelNames.toArray();
+    this.tableStarts = tableStarts.toArray();
+    this.tableNames = tableNames.toArray();
+    this.stringWords = stringWords.toArray();
+    this.stringAddresses = stringAddresses.toArray();
+    this.stringStarts = stringStarts.toArray();
+    this.stringChars = stringChars.toString().toCharArray();
+    this.irregularOps = irregularOps.isEmpty() ? Map.of() : irregularOps;
+    this.entrypoints = script.entrypoints.toArray();
+    this.branches = script.branches.toArray();
+    this.subs = script.subs.toArray();
+    this.subTables = script.subTables.toArray();
+    this.reentries = script.reentries.toArray();
+    this.jumpTableDests = script.jumpTableDests.toArray();
+    this.strings = strings;
+  }
+
+  /** Whether an op's params are the tokens in the words right after it, with the types their words say they are */
+  private static boolean isRegular(final Entry[] entries, final int index, final Op op) {
+    int next = index + 1;
+
+    for(final Param param : op.params) {
+      if(param == null || param.rawValues.length == 0 || param.type != ParameterType.byOpcode(param.rawValues[0] >>> 24)) {
+        return false;
+      }
+
+      for(int n = 0; n < param.rawValues.length; n++) {
+        if(next >= entries.length || entries[next++] != param) {
+          return false;
+        }
+      }
+
+      // The param has to end where its words say it does
+      if(next < entries.length && entries[next] == param) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /** @return the script length in words */
+  public int length() {
+    return this.kinds.length;
+  }
+
+  /** @return the kind of token that covers the word at this index, e.g. {@link #OP} */
+  public int kind(final int index) {
+    return this.kinds[index] & KIND_MASK;
+  }
+
+  /** @return the raw word at this index, or a name id for entrypoints and a table id for pointer tables */
+  public int word(final int index) {
+    return this.words[index];
+  }
+
+  /** @return the index of the first word of the token that covers the word at this index */
+  public int owner(final int index) {
+    int owner = index;
+
+    while(owner > 0 && (this.kinds[owner] & CONTINUES) != 0) {
+      owner--;
+    }
+
+    return owner;
+  }
+
+  /** Unpacks this into a regular script */
+  public Script toScript() {
+    final Script script = new Script(this.kinds.length);
+    final Entry[] entries = script.entries;
+
+    for(int i = 0; i < this.kinds.length; i++) {
+      if((this.kinds[i] & CONTINUES) != 0) {
+        entries[i] = entries[i - 1];
+        continue;
+      }
+
+      final int address = i * 0x4;
+      final int word = this.words[i];
+
+      switch(this.kind(i)) {
+        case OP -> entries[i] = new Op(address, OpType.byOpcode(word & 0xff), word >> 16, word >>> 8 & 0xff);
+
+        case PARAM -> {
+          final int[] rawValues = Arrays.copyOfRange(this.words, i, i + this.tokenLength(i));
+          final int labelIndex = Arrays.binarySearch(this.paramLabelWords, i);
+          final String label = labelIndex >= 0 ? this.names[this.paramLabelNames[labelIndex]] : null;
+          entries[i] = new Param(address, ParameterType.byOpcode(rawValues[0] >>> 24), rawValues, Param.UNRESOLVED, label);
+        }
+
+        case DATA -> {
+          int end = i + 1;
+          while(end < this.kinds.length && this.kinds[end] == DATA) {
+            end++;
+          }
+
+          final ByteBuffer buffer = ByteBuffer.allocate((end - i) * 0x4).order(ByteOrder.LITTLE_ENDIAN);
+          buffer.asIntBuffer().put(this.words, i, end - i);
+          Arrays.fill(entries, i, end, new DataRun(address, buffer));
+          i = end - 1;
+        }
+
+        case STRING -> {
+          final int string = Arrays.binarySearch(this.stringWords, i);
+          final int[] chars = new int[this.stringStarts[string + 1] - this.stringStarts[string]];
+
+          for(int n = 0; n < chars.length; n++) {
+            chars[n] = this.stringChars[this.stringStarts[string] + n];
+          }
+
+          entries[i] = new LodString(this.stringAddresses[string], chars);
+        }
+
+        case POINTER_TABLE -> {
+          final String[] labels = new String[this.tableStarts[word + 1] - this.tableStarts[word]];
+
+          for(int n = 0; n < labels.length; n++) {
+            labels[n] = this.names[this.tableNames[this.tableStarts[word] + n]];
+          }
+
+          entries[i] = new PointerTable(address, labels);
+        }
+
+        case ENTRYPOINT -> entries[i] = new Entrypoint(address, this.names[word]);
+      }
+    }
+
+    for(int i = 0; i < entries.length; i++) {
+      if(entries[i] instanceof final Op op && entries[i] != (i != 0 ? entries[i - 1] : null)) {
+        final Param[] irregular = this.irregularOps.get(i);
+
+        if(irregular != null) {
+          System.arraycopy(irregular, 0, op.params, 0, op.params.length);
+          continue;
+        }
+
+        int next = i + 1;
+        for(int n = 0; n < op.params.length; n++) {
+          op.params[n] = (Param)entries[next];
+          next += op.params[n].rawValues.length;
+        }
+      }
+    }
+
+    for(int i = 0; i < this.labelAddresses.length; i++) {
+      if(this.labelNames[i] == -1) {
+        script.labels.addEmpty(this.labelAddresses[i]);
+      } else {
+        script.addUniqueLabel(this.labelAddresses[i], this.names[this.labelNames[i]]);
+      }
+    }
+
+    for(int i = 0; i < entries.length; i++) {
+      if(entries[i] instanceof final Entrypoint entrypoint) {
+        this.addXref(script, i * 0x4, entrypoint.destination);
+      } else if(entries[i] instanceof final PointerTable table && entries[i] != (i != 0 ? entries[i - 1] : null)) {
+        for(int n = 0; n < table.labels.length; n++) {
+          this.addXref(script, table.address + n * 0x4, table.labels[n]);
+        }
+      }
+    }
+
+    for(int i = 0; i < this.paramLabelWords.length; i++) {
+      this.addXref(script, this.paramLabelWords[i] * 0x4, this.names[this.paramLabelNames[i]]);
+    }
+
+    addAll(script.entrypoints, this.entrypoints);
+    addAll(script.branches, this.branches);
+    addAll(script.subs, this.subs);
+    addAll(script.subTables, this.subTables);
+    addAll(script.reentries, this.reentries);
+    addAll(script.jumpTableDests, this.jumpTableDests);
+
+    for(int i = 0; i < this.strings.length; i += 2) {
+      script.strings.add(new StringInfo(this.strings[i], this.strings[i + 1]));
+    }
+
+    return script;
+  }
+
+  /** @return how many words the token starting at this index covers */
+  private int tokenLength(final int index) {
+    int end = index + 1;
+
+    while(end < this.kinds.length && (this.kinds[end] & CONTINUES) != 0) {
+      end++;
+    }
+
+    return end - index;
+  }
+
+  private void addXref(final Script script, final int site, final String label) {
+    final OptionalInt destAddress = script.labels.addressOf(label);
+
+    if(destAddress.isPresent()) {
+      script.xrefs.add(site, destAddress.getAsInt(), label);
+    }
+  }
+
+  private static void addAll(final AddressSet set, final int[] addresses) {
+    for(final int address : addresses) {
+      set.add(address);
+    }
+  }
+
+  /** Label names by first use, so each name is stored once */
+  private static final class Names {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> list = new ArrayList<>();
+
+    private int id(final String name) {
+      return this.ids.computeIfAbsent(name, key -> {
+        this.list.add(key);
+        return this.list.size() - 1;
+      });
+    }
+  }
+
+  private static final class IntList {
+    private int[] values = new int[16];
+    private int size;
+
+    private void add(final int value) {
+      if(this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+
+      this.values[this.size++] = value;
+    }
+
+    private int size() {
+      return this.size;
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(this.values, this.size);
+    }
+  }
+}
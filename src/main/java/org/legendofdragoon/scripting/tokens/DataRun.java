@@ -0,0 +1,47 @@
+package org.legendofdragoon.scripting.tokens;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A run of consecutive data words read straight from the script's buffer. The run occupies every entry slot it
+ * covers, the same way a {@link LodString} does, so one object stands in for what would otherwise be one {@link Data}
+ * per word.
+ */
+public class DataRun extends Entry {
+  private final ByteBuffer words;
+
+  /**
+   * @param words The run's bytes, a whole number of words; shared if on the heap, otherwise copied so a script never
+   *              keeps a mapped file open
+   */
+  public DataRun(final int address, final ByteBuffer words) {
+    super(address);
+    this.words = (words.isDirect() ? ByteBuffer.allocate(words.remaining()).put(words.duplicate()).flip() : words.slice()).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /** @return the number of words in this run */
+  public int length() {
+    return this.words.limit() / 4;
+  }
+
+  /** @return the word at this index into the run */
+  public int word(final int index) {
+    return this.words.getInt(index * 4);
+  }
+
+  /** @return the word at this script address, which must be inside the run */
+  public int wordAt(final int address) {
+    return this.word((address - this.address) / 4);
+  }
+
+  /** Copies the words from this index into the run to the end of it */
+  public void copyTo(final int from, final int[] out, final int offset) {
+    this.words.asIntBuffer().get(from, out, offset, this.length() - from);
+  }
+
+  @Override
+  public String toString() {
+    return "data[" + this.length() + ']';
+  }
+}
@@ -0,0 +1,141 @@
+package org.legendofdragoon.scripting.tokens;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Label names by destination address, stored in an array indexed by word. Unaligned or out-of-range addresses (from
+ * malformed input, or anything past a sparse script's index) are kept in a fallback map. Also indexes each label's
+ * address so it can be looked up by name.
+ */
+public class LabelMap {
+  private final List<String>[] words;
+  /** Sorted so a range of addresses can be read without going through them all */
+  private TreeMap<Integer, List<String>> outliers;
+  private final Map<String, Integer> addresses = new HashMap<>();
+  private int size;
+
+  /** @param length How many words to index, the script length unless it's sparse, see {@link Script#Script(int, int)} */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public LabelMap(final int length) {
+    this.words = new List[length];
+  }
+
+  public boolean containsKey(final int address) {
+    return this.get(address) != null;
+  }
+
+  /** @return the labels at this address in the order they were added, or null if no label was ever added here */
+  public List<String> get(final int address) {
+    if(!this.isWordAddress(address)) {
+      return this.outliers != null ? this.outliers.get(address) : null;
+    }
+
+    return this.words[address >>> 2];
+  }
+
+  public void add(final int address, final String label) {
+    this.getOrCreate(address).add(label);
+    this.addresses.putIfAbsent(label, address);
+  }
+
+  /** Marks an address as labelled without naming it, the same as removing every label there */
+  public void addEmpty(final int address) {
+    this.getOrCreate(address);
+  }
+
+  private List<String> getOrCreate(final int address) {
+    List<String> labels = this.get(address);
+
+    if(labels == null) {
+      labels = new ArrayList<>();
+
+      if(this.isWordAddress(address)) {
+        this.words[address >>> 2] = labels;
+      } else {
+        if(this.outliers == null) {
+          this.outliers = new TreeMap<>();
+        }
+
+        this.outliers.put(address, labels);
+      }
+
+      this.size++;
+    }
+
+    return labels;
+  }
+
+  /** Removes a label by name. The address still counts as labelled even if this was its last label. */
+  public boolean remove(final String label) {
+    final Integer address = this.addresses.remove(label);
+
+    if(address == null) {
+      return false;
+    }
+
+    return this.get(address).remove(label);
+  }
+
+  public OptionalInt addressOf(final String label) {
+    final Integer address = this.addresses.get(label);
+    return address != null ? OptionalInt.of(address) : OptionalInt.empty();
+  }
+
+  /** @return every labelled address in ascending order */
+  public int[] addresses() {
+    final int[] out = new int[this.size];
+    int count = 0;
+
+    for(int i = 0; i < this.words.length; i++) {
+      if(this.words[i] != null) {
+        out[count++] = i << 2;
+      }
+    }
+
+    if(this.outliers != null) {
+      for(final int address : this.outliers.keySet()) {
+        out[count++] = address;
+      }
+
+      Arrays.sort(out);
+    }
+
+    return out;
+  }
+
+  /** @return every labelled address in {@code [from, to)} in ascending order */
+  public int[] addresses(final int from, final int to) {
+    final int start = Math.max(0, from + 3 >> 2);
+    final int end = Math.min(this.words.length, Math.max(0, to + 3 >> 2));
+    final Set<Integer> outliers = this.outliers != null && from < to ? this.outliers.subMap(from, to).keySet() : Set.of();
+    final int[] out = new int[Math.max(0, end - start) + outliers.size()];
+    int count = 0;
+
+    for(int i = start; i < end; i++) {
+      if(this.words[i] != null) {
+        out[count++] = i << 2;
+      }
+    }
+
+    if(!outliers.isEmpty()) {
+      for(final int address : outliers) {
+        out[count++] = address;
+      }
+
+      Arrays.sort(out, 0, count);
+    }
+
+    return Arrays.copyOf(out, count);
+  }
+
+  private boolean isWordAddress(final int address) {
+    return (address & 0x3) == 0 && address >= 0 && address >>> 2 < this.words.length;
+  }
+}
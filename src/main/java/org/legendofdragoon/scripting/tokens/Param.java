@@ -3,15 +3,18 @@ package org.legendofdragoon.scripting.tokens;
 import org.legendofdragoon.scripting.ParameterType;
 
 import java.util.Arrays;
-import java.util.OptionalInt;
 
 public class Param extends Entry {
+  /** The {@link #resolvedValue} of a param that depends on storage or other state. An immediate 0x80000000 reads the same, no branch can go there anyway. */
+  public static final int UNRESOLVED = Integer.MIN_VALUE;
+
   public final ParameterType type;
   public final int[] rawValues;
-  public final OptionalInt resolvedValue;
-  public final String label;
+  public final int resolvedValue;
+  /** Named after the fact when entrypoints are probed in parallel */
+  public String label;
 
-  public Param(final int address, final ParameterType type, final int[] rawValues, final OptionalInt resolvedValue, final String label) {
+  public Param(final int address, final ParameterType type, final int[] rawValues, final int resolvedValue, final String label) {
     super(address);
     this.type = type;
     this.rawValues = rawValues;
@@ -3,50 +3,69 @@ package org.legendofdragoon.scripting.tokens;
 import org.legendofdragoon.scripting.StringInfo;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 public class Script {
   public final Entry[] entries;
-  public final Set<Integer> entrypoints = new HashSet<>();
-  public final Set<Integer> branches = new HashSet<>();
-  public final Set<Integer> subs = new HashSet<>();
-  public final Set<Integer> subTables = new HashSet<>();
-  public final Set<Integer> reentries = new HashSet<>();
-  public final Set<Integer> jumpTableDests = new HashSet<>();
-  public final Set<StringInfo> strings = new HashSet<>();
-  public final Map<Integer, List<String>> labels = new HashMap<>();
-  public final Map<String, Integer> labelUsageCount = new HashMap<>();
+  public final AddressSet entrypoints;
+  public final AddressSet branches;
+  public final AddressSet subs;
+  public final AddressSet subTables;
+  public final AddressSet reentries;
+  public final AddressSet jumpTableDests;
+  public final Set<StringInfo> strings = new TreeSet<>();
+  public final LabelMap labels;
+  public final Xrefs xrefs;
   /** Deferred list of string tables to build after looking for table overruns */
   public final List<Runnable> buildStrings = new ArrayList<>();
+  /** Why disassembly stopped short or skipped something, only ever added to when disassembling within a budget */
+  public final List<String> diagnostics = new ArrayList<>();
   private int labelCount;
 
   public Script(final int length) {
+    this(length, length);
+  }
+
+  /**
+   * @param length The script length in words
+   * @param indexed How many words the address sets, labels and xrefs index directly. Addresses past that are hashed
+   *                instead, so a script that only fills a little of a large file doesn't allocate an index for all of it.
+   */
+  public Script(final int length, final int indexed) {
     this.entries = new Entry[length];
+    this.entrypoints = new AddressSet(indexed);
+    this.branches = new AddressSet(indexed);
+    this.subs = new AddressSet(indexed);
+    this.subTables = new AddressSet(indexed);
+    this.reentries = new AddressSet(indexed);
+    this.jumpTableDests = new AddressSet(indexed);
+    this.labels = new LabelMap(indexed);
+    this.xrefs = new Xrefs(indexed);
   }
 
-  /** Uses an existing label if one already points to this address */
-  public String addLabel(final int destAddress, final String name) {
+  /**
+   * Uses an existing label if one already points to this address, otherwise adds one named {@code namePrefix + nameIndex}
+   * (only built when it's needed). The reference from {@code site} is recorded in the xrefs.
+   */
+  public String addLabel(final int site, final int destAddress, final String namePrefix, final int nameIndex) {
     if(this.labels.containsKey(destAddress)) {
       final String existing = this.labels.get(destAddress).get(0);
-      this.labelUsageCount.putIfAbsent(existing, 0);
-      this.labelUsageCount.compute(existing, (label, value) -> value + 1);
+      this.xrefs.add(site, destAddress, existing);
       return existing;
     }
 
-    this.labels.computeIfAbsent(destAddress, k -> new ArrayList<>()).add(name);
-    this.labelUsageCount.putIfAbsent(name, 0);
-    this.labelUsageCount.compute(name, (label, value) -> value + 1);
+    final String name = namePrefix + nameIndex;
+    this.labels.add(destAddress, name);
+    this.xrefs.add(site, destAddress, name);
     this.labelCount++;
     return name;
   }
 
   /** Forces adding a label even if another label already points to this address */
   public String addUniqueLabel(final int destAddress, final String name) {
-    this.labels.computeIfAbsent(destAddress, k -> new ArrayList<>()).add(name);
+    this.labels.add(destAddress, name);
     this.labelCount++;
     return name;
   }
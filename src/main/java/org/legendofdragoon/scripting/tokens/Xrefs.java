@@ -0,0 +1,117 @@
+package org.legendofdragoon.scripting.tokens;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cross references by destination address: the site of each reference (the address of the entrypoint, param or table
+ * entry holding it) and the label it refers through. Destinations are stored in an array indexed by word, unaligned or
+ * out-of-range ones (from malformed input, or anything past a sparse script's index) are kept in a fallback map.
+ */
+public class Xrefs {
+  private static final int[] NO_SITES = new int[0];
+
+  private static final class Refs {
+    private int count;
+    private int[] sites = new int[2];
+    private String[] labels = new String[2];
+  }
+
+  private final Refs[] words;
+  private Map<Integer, Refs> outliers;
+
+  /** @param length How many words to index, the script length unless it's sparse, see {@link Script#Script(int, int)} */
+  public Xrefs(final int length) {
+    this.words = new Refs[length];
+  }
+
+  public void add(final int site, final int destAddress, final String label) {
+    Refs refs = this.get(destAddress);
+
+    if(refs == null) {
+      refs = new Refs();
+
+      if(this.isWordAddress(destAddress)) {
+        this.words[destAddress >>> 2] = refs;
+      } else {
+        if(this.outliers == null) {
+          this.outliers = new HashMap<>();
+        }
+
+        this.outliers.put(destAddress, refs);
+      }
+    }
+
+    if(refs.count == refs.sites.length) {
+      refs.sites = Arrays.copyOf(refs.sites, refs.count * 2);
+      refs.labels = Arrays.copyOf(refs.labels, refs.count * 2);
+    }
+
+    refs.sites[refs.count] = site;
+    refs.labels[refs.count] = label;
+    refs.count++;
+  }
+
+  /**
+   * Removes the reference from this site to this destination
+   *
+   * @return how many references to the same label remain, or -1 if there was no such reference
+   */
+  public int remove(final int site, final int destAddress) {
+    final Refs refs = this.get(destAddress);
+
+    if(refs == null) {
+      return -1;
+    }
+
+    for(int i = 0; i < refs.count; i++) {
+      if(refs.sites[i] == site) {
+        final String label = refs.labels[i];
+        System.arraycopy(refs.sites, i + 1, refs.sites, i, refs.count - i - 1);
+        System.arraycopy(refs.labels, i + 1, refs.labels, i, refs.count - i - 1);
+        refs.count--;
+        refs.labels[refs.count] = null;
+        return this.refCount(destAddress, label);
+      }
+    }
+
+    return -1;
+  }
+
+  /** @return the sites referring to this address, in the order they were found */
+  public int[] sitesOf(final int destAddress) {
+    final Refs refs = this.get(destAddress);
+    return refs != null ? Arrays.copyOf(refs.sites, refs.count) : NO_SITES;
+  }
+
+  /** @return how many references there are to this label, which points to this address */
+  public int refCount(final int destAddress, final String label) {
+    final Refs refs = this.get(destAddress);
+
+    if(refs == null) {
+      return 0;
+    }
+
+    int count = 0;
+    for(int i = 0; i < refs.count; i++) {
+      if(refs.labels[i].equals(label)) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  private Refs get(final int destAddress) {
+    if(!this.isWordAddress(destAddress)) {
+      return this.outliers != null ? this.outliers.get(destAddress) : null;
+    }
+
+    return this.words[destAddress >>> 2];
+  }
+
+  private boolean isWordAddress(final int address) {
+    return (address & 0x3) == 0 && address >= 0 && address >>> 2 < this.words.length;
+  }
+}
@@ -0,0 +1,69 @@
+package org.legendofdragoon.scripting;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vectorized {@link WordClasses#classifyScalar}. Built from its own source set, the only one compiled against the
+ * incubator module, and looked up reflectively by {@link WordClasses} so the rest of the jar never links against it.
+ */
+final class VectorWordClassifier {
+  private VectorWordClassifier() { }
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+  /** Words copied out of the script at a time, a multiple of 64 so each chunk starts on a new bitmap word */
+  private static final int CHUNK = 4096;
+
+  static WordClasses classify(final State state) {
+    final int length = state.length() / 4;
+    final WordClasses classes = new WordClasses(length);
+    final int[] words = new int[CHUNK];
+    final int[] indices = new int[SPECIES.length()];
+
+    for(int chunk = 0; chunk < length; chunk += CHUNK) {
+      final int count = Math.min(CHUNK, length - chunk);
+      state.readWords(chunk, words, count);
+
+      final int vectorCount = SPECIES.loopBound(count);
+      int i = 0;
+      for(; i < vectorCount; i += SPECIES.length()) {
+        classify(classes, chunk + i, IntVector.fromArray(SPECIES, words, i), indices);
+      }
+
+      for(; i < count; i++) {
+        classes.classifyWord(chunk + i, words[i]);
+      }
+    }
+
+    return classes.finish();
+  }
+
+  /** Same checks as {@link WordClasses#classifyWord}, a vector of words at a time. {@code index} is a multiple of the vector length. */
+  private static void classify(final WordClasses classes, final int index, final IntVector words, final int[] indices) {
+    words.and(0xff).intoArray(indices, 0);
+    final IntVector info = IntVector.fromArray(SPECIES, DecodeTable.OP_INFO, 0, indices, 0);
+    final IntVector upper = words.lanewise(VectorOperators.LSHR, 16);
+
+    final VectorMask<Integer> valid = info.and(DecodeTable.OP_VALID).compare(VectorOperators.NE, 0);
+    final VectorMask<Integer> call = info.and(DecodeTable.OP_CALL).compare(VectorOperators.NE, 0);
+    final VectorMask<Integer> hasHeaderParam = info.and(DecodeTable.OP_HEADER_PARAM).compare(VectorOperators.NE, 0);
+
+    final IntVector paramCount = words.lanewise(VectorOperators.LSHR, 8).and(0xff);
+    final IntVector requiredParamCount = info.lanewise(VectorOperators.LSHR, 8).and(0xff);
+    final VectorMask<Integer> paramCountOk = call.or(paramCount.compare(VectorOperators.EQ, requiredParamCount));
+
+    final VectorMask<Integer> callIndexOk = call.and(upper.compare(VectorOperators.LT, 1024));
+    final VectorMask<Integer> headerParamOk = callIndexOk.or(call.not().and(hasHeaderParam.or(upper.compare(VectorOperators.EQ, 0))));
+
+    words.lanewise(VectorOperators.LSHR, 24).intoArray(indices, 0);
+    final VectorMask<Integer> paramType = IntVector.fromArray(SPECIES, DecodeTable.NON_IMMEDIATE_PARAMS, 0, indices, 0).compare(VectorOperators.NE, 0);
+
+    final int shift = index & 63;
+    classes.opcodes[index >>> 6] |= valid.toLong() << shift;
+    classes.paramCounts[index >>> 6] |= paramCountOk.toLong() << shift;
+    classes.headerParams[index >>> 6] |= headerParamOk.toLong() << shift;
+    classes.paramTypes[index >>> 6] |= paramType.toLong() << shift;
+  }
+}